@@ -2,6 +2,7 @@ plugins {
 	java
 	id("org.springframework.boot") version "4.0.2"
 	id("io.spring.dependency-management") version "1.1.7"
+	id("me.champeau.jmh") version "0.7.3"
 }
 
 group = "com.chatapp"
@@ -20,6 +21,12 @@ configurations {
 	}
 }
 
+// src/loadTest: drives the service over HTTP/WebSocket, only shares its libraries
+val loadTest by sourceSets.creating
+
+configurations[loadTest.implementationConfigurationName].extendsFrom(configurations.implementation.get())
+configurations[loadTest.runtimeOnlyConfigurationName].extendsFrom(configurations.runtimeOnly.get())
+
 repositories {
 	mavenCentral()
 }
@@ -30,11 +37,17 @@ dependencies {
 	implementation("com.fasterxml.jackson.datatype:jackson-datatype-jsr310:2.21.0")
 	implementation("org.springframework.boot:spring-boot-starter-zipkin")
 	implementation("org.springframework.boot:spring-boot-starter-actuator")
+	implementation("io.micrometer:micrometer-tracing")
 
 	// Database
 	implementation("org.springframework.boot:spring-boot-starter-data-redis-reactive")
 	implementation("org.springframework.boot:spring-boot-starter-data-cassandra-reactive")
 
+	// Cache
+	implementation("com.github.ben-manes.caffeine:caffeine")
+	// maintained fork of org.lz4:lz4-java (same net.jpountz API), which has unfixed decompressor CVEs
+	implementation("at.yawk.lz4:lz4-java:1.10.1")
+
 	// WebFlux and WebSocket
 	implementation("org.springframework.boot:spring-boot-starter-webflux")
 	implementation("org.springframework.boot:spring-boot-starter-websocket")
@@ -60,8 +73,19 @@ dependencies {
 	testImplementation("org.springframework.boot:spring-boot-starter-websocket-test")
 	testImplementation("org.springframework.boot:spring-boot-starter-zipkin-test")
 
+	// Benchmarks (src/jmh), collaborators are stub-only mocks
+	jmh("org.mockito:mockito-core")
+	jmh("io.micrometer:micrometer-tracing-bridge-brave")
+
+	// Load test harness (src/loadTest)
+	"loadTestImplementation"("org.hdrhistogram:HdrHistogram:2.2.2")
+	"loadTestImplementation"("org.testcontainers:testcontainers:1.20.3")
+	"loadTestImplementation"("com.redis:testcontainers-redis:2.2.4")
+
 	testRuntimeOnly("org.junit.platform:junit-platform-launcher")
+	testImplementation("io.projectreactor.tools:blockhound:1.0.13.RELEASE")
 	testImplementation("com.redis:testcontainers-redis:2.2.4")
+	testImplementation("org.hdrhistogram:HdrHistogram:2.2.2")
 	testImplementation("org.testcontainers:testcontainers:2.0.3")
 
 }
@@ -69,3 +93,54 @@ dependencies {
 tasks.withType<Test> {
 	useJUnitPlatform()
 }
+
+tasks.test {
+	useJUnitPlatform {
+		excludeTags("blockhound")
+	}
+}
+
+// BlockHound instruments the whole JVM once installed, so its tests get their own
+val blockHoundTest by tasks.registering(Test::class) {
+	description = "Fails when a blocking call runs on an event loop or other non-blocking thread"
+	group = "verification"
+	testClassesDirs = sourceSets.test.get().output.classesDirs
+	classpath = sourceSets.test.get().runtimeClasspath
+	useJUnitPlatform {
+		includeTags("blockhound")
+	}
+	// needed by BlockHound's retransformation on JDK 13+; ignored where the flag no longer exists
+	jvmArgs("-XX:+IgnoreUnrecognizedVMOptions", "-XX:+AllowRedefinitionToAddDeleteMethods")
+}
+
+tasks.check {
+	dependsOn(blockHoundTest)
+}
+
+// ./gradlew jmh -Pjmh.tag=<commit> -Pjmh.includes=<regex>
+// results/jmh/<tag>.json of two commits can be diffed with any JMH visualizer
+jmh {
+	jmhVersion = "1.37"
+	fork = 1
+	warmupIterations = 3
+	iterations = 5
+	profilers = listOf("gc")
+	resultFormat = "JSON"
+	resultsFile = layout.buildDirectory.file("results/jmh/${findProperty("jmh.tag") ?: "results"}.json")
+	findProperty("jmh.includes")?.let { includes = listOf(it.toString()) }
+}
+
+// ./gradlew loadTest -Ploadtest.clients=2000 -Ploadtest.rooms=200 -Ploadtest.rate=5000 -Ploadtest.duration=60s
+// without -Ploadtest.target it starts ScyllaDB and Redis containers and the boot jar in a child JVM
+tasks.register<JavaExec>("loadTest") {
+	group = "verification"
+	description = "Runs the WebSocket load test and prints latency percentiles and throughput"
+	dependsOn(tasks.bootJar)
+	classpath = loadTest.runtimeClasspath
+	mainClass = "com.chatapp.chat_service.loadtest.ChatLoadTest"
+	workingDir = projectDir
+	systemProperty("loadtest.app-jar", tasks.bootJar.get().archiveFile.get().asFile.absolutePath)
+	project.properties
+		.filterKeys { it.startsWith("loadtest.") }
+		.forEach { (key, value) -> systemProperty(key, value.toString()) }
+}
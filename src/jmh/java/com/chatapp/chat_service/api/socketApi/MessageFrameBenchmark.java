@@ -0,0 +1,90 @@
+package com.chatapp.chat_service.api.socketApi;
+
+import com.chatapp.chat_service.domain.model.Message;
+import com.chatapp.chat_service.infrastructure.config.ApplicationConfig;
+import com.chatapp.chat_service.infrastructure.config.TimeOrderedIdGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.netty.buffer.ByteBufAllocator;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.NettyDataBufferFactory;
+import reactor.core.scheduler.Schedulers;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-message JSON work of {@link ChatWebSocketHandler}: parsing an inbound
+ * frame, and delivering the saved message to a room of {@code roomSize}
+ * sessions. {@code broadcastEncodedOnce} is the current path (one
+ * {@code writeValueAsBytes}, every session wraps the same array);
+ * {@code broadcastViaString} is the old one (one String, UTF-8 encoded again
+ * by {@code session.textMessage} for every session).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class MessageFrameBenchmark {
+
+    @Param({"16", "1024"})
+    int contentLength;
+
+    @Param({"1", "10", "100", "1000"})
+    int roomSize;
+
+    private ObjectMapper objectMapper;
+    private DataBufferFactory bufferFactory;
+    private ChatWebSocketHandler handler;
+    private JsonNode inbound;
+    private Message message;
+
+    @Setup
+    public void setUp() throws Exception {
+        objectMapper = new ApplicationConfig().objectMapper();
+        // the factory reactor-netty hands every session, wrap() never copies
+        bufferFactory = new NettyDataBufferFactory(ByteBufAllocator.DEFAULT);
+        // only the JSON paths are exercised, the other collaborators are never touched
+        handler = new ChatWebSocketHandler(objectMapper, null, null, null, null, null,
+                new TimeOrderedIdGenerator(Clock.systemUTC()), null, null,
+                new ChatSocketMetrics(new SimpleMeterRegistry()), Schedulers.immediate());
+
+        message = Message.builder()
+                .chatId(UUID.randomUUID())
+                .messageID(UUID.randomUUID())
+                .senderID(UUID.randomUUID())
+                .content("x".repeat(contentLength))
+                .status("SENT")
+                .createdAt(Instant.now())
+                .updatedAt(Instant.now())
+                .build();
+        inbound = objectMapper.readTree("{\"chatId\":\"" + message.getChatId() + "\",\"senderID\":\""
+                + message.getSenderID() + "\",\"content\":\"" + message.getContent() + "\"}");
+    }
+
+    @Benchmark
+    public Message parseAndPrepareMessage() {
+        return handler.parseAndPrepareMessage(inbound).block();
+    }
+
+    @Benchmark
+    public void broadcastEncodedOnce(Blackhole bh) {
+        byte[] frame = handler.toJson(message);
+        for (int i = 0; i < roomSize; i++) {
+            bh.consume(bufferFactory.wrap(frame));
+        }
+    }
+
+    @Benchmark
+    public void broadcastViaString(Blackhole bh) throws Exception {
+        String json = objectMapper.writeValueAsString(message);
+        for (int i = 0; i < roomSize; i++) {
+            bh.consume(bufferFactory.wrap(json.getBytes(StandardCharsets.UTF_8)));
+        }
+    }
+}
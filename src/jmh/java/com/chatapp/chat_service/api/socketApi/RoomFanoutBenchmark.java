@@ -0,0 +1,48 @@
+package com.chatapp.chat_service.api.socketApi;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Local fan-out through {@link ChatRoomRegistry}: cost of one publish into a
+ * room while the other rooms stay untouched. Queues are never drained, so
+ * past the first {@code capacity} frames this includes DROP_OLDEST eviction.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class RoomFanoutBenchmark {
+
+    @Param({"1000"})
+    int rooms;
+
+    @Param({"2", "50", "500"})
+    int roomSize;
+
+    private ChatRoomRegistry registry;
+    private UUID[] chatIds;
+    private byte[] payload;
+
+    @Setup
+    public void setUp() {
+        registry = new ChatRoomRegistry();
+        chatIds = new UUID[rooms];
+        for (int r = 0; r < rooms; r++) {
+            chatIds[r] = UUID.randomUUID();
+            for (int s = 0; s < roomSize; s++) {
+                registry.join(chatIds[r], new ChatSession(r + "-" + s, UUID.randomUUID()));
+            }
+        }
+        payload = "{\"chatId\":\"x\",\"content\":\"hello world\"}".getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public int publish() {
+        UUID chatId = chatIds[ThreadLocalRandom.current().nextInt(rooms)];
+        return registry.publish(chatId, payload);
+    }
+}
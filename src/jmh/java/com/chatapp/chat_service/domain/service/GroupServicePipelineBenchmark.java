@@ -0,0 +1,104 @@
+package com.chatapp.chat_service.domain.service;
+
+import com.chatapp.chat_service.api.dto.GroupDto;
+import com.chatapp.chat_service.domain.model.Group;
+import com.chatapp.chat_service.domain.repository.GroupRepository;
+import com.chatapp.chat_service.infrastructure.config.TimeOrderedIdGenerator;
+import com.chatapp.chat_service.infrastructure.persistence.db.ScyllaMetrics;
+import com.chatapp.chat_service.infrastructure.mapper.GroupMapper;
+import com.chatapp.chat_service.infrastructure.persistence.jpa.MembershipService;
+import com.chatapp.chat_service.infrastructure.persistence.redis.GroupNearCache;
+import com.chatapp.chat_service.infrastructure.persistence.redis.GroupRedisService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.cassandra.core.ReactiveCassandraOperations;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+/**
+ * {@link GroupServiceImpl} read paths with in-memory collaborators:
+ * near-cache hit, Redis hit and a bulk lookup of 100 ids.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class GroupServicePipelineBenchmark {
+
+    private GroupServiceImpl service;
+    private UUID nearId;
+    private UUID redisId;
+    private List<UUID> bulkIds;
+
+    @Setup
+    public void setUp() {
+        Clock clock = Clock.systemUTC();
+        GroupMapper mapper = new GroupMapper(clock, new TimeOrderedIdGenerator(clock));
+        Group near = group();
+        Group cached = group();
+        nearId = near.getGroupID();
+        redisId = cached.getGroupID();
+
+        GroupNearCache nearCache = mock(GroupNearCache.class, withSettings().stubOnly());
+        when(nearCache.get(nearId)).thenReturn(near);
+
+        List<Group> bulk = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            bulk.add(group());
+        }
+        bulkIds = bulk.stream().map(Group::getGroupID).toList();
+
+        GroupRedisService redisService = mock(GroupRedisService.class, withSettings().stubOnly());
+        when(redisService.getGroupWithRefreshHint(redisId.toString()))
+                .thenReturn(Mono.just(new GroupRedisService.CachedGroup(cached, false)));
+        when(redisService.getGroupsByIds(anyCollection())).thenReturn(Flux.fromIterable(bulk));
+        when(redisService.saveAll(any())).thenReturn(Flux.empty());
+
+        service = new GroupServiceImpl(
+                mock(GroupRepository.class, withSettings().stubOnly()),
+                mock(ReactiveCassandraOperations.class, withSettings().stubOnly()),
+                redisService,
+                nearCache,
+                mock(MembershipService.class, withSettings().stubOnly()),
+                mapper,
+                new ScyllaMetrics(new SimpleMeterRegistry()));
+    }
+
+    @Benchmark
+    public GroupDto getGroupByIdNearHit() {
+        return service.getGroupById(nearId).block();
+    }
+
+    @Benchmark
+    public GroupDto getGroupByIdRedisHit() {
+        return service.getGroupById(redisId).block();
+    }
+
+    @Benchmark
+    public List<GroupDto> getGroupsByIds() {
+        return service.getGroupsByIds(bulkIds).collectList().block();
+    }
+
+    private static Group group() {
+        Set<UUID> members = new LinkedHashSet<>();
+        for (int i = 0; i < 20; i++) {
+            members.add(UUID.randomUUID());
+        }
+        return new Group(UUID.randomUUID(), "title", "description", UUID.randomUUID(), members,
+                Instant.now(), Instant.now());
+    }
+}
@@ -0,0 +1,98 @@
+package com.chatapp.chat_service.domain.service;
+
+import com.chatapp.chat_service.domain.model.ChatBucket;
+import com.chatapp.chat_service.domain.model.Message;
+import com.chatapp.chat_service.domain.repository.ChatBucketRepository;
+import com.chatapp.chat_service.domain.repository.MessageRepository;
+import com.chatapp.chat_service.infrastructure.config.TimeOrderedIdGenerator;
+import com.chatapp.chat_service.infrastructure.persistence.db.ScyllaMetrics;
+import com.chatapp.chat_service.infrastructure.persistence.jpa.UnreadCounterService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.domain.Limit;
+import org.springframework.util.unit.DataSize;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+/**
+ * Reactive pipeline overhead of {@link MessageServiceImpl} with in-memory
+ * collaborators: stub-only mocks answer instantly, so what is left is the
+ * operator chain itself plus the recent-message ring.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class MessageServicePipelineBenchmark {
+
+    private static final int PAGE = 50;
+
+    private MessageServiceImpl service;
+    private UUID coldChat;
+    private UUID hotChat;
+    private Message message;
+
+    @Setup
+    public void setUp() {
+        Clock clock = Clock.systemUTC();
+        TimeOrderedIdGenerator ids = new TimeOrderedIdGenerator(clock);
+        coldChat = UUID.randomUUID();
+        hotChat = UUID.randomUUID();
+
+        List<Message> page = new ArrayList<>();
+        for (int i = 0; i < PAGE; i++) {
+            page.add(Message.builder().chatId(coldChat).messageID(ids.generateId()).content("hello").build());
+        }
+
+        MessageRepository repository = mock(MessageRepository.class, withSettings().stubOnly());
+        when(repository.findByChatIdAndBucket(any(), anyInt(), any(Limit.class))).thenReturn(Flux.fromIterable(page));
+
+        ChatBucketRepository bucketIndex = mock(ChatBucketRepository.class, withSettings().stubOnly());
+        when(bucketIndex.findByChatIdAndBucketLessThanEqual(any(), anyInt()))
+                .thenAnswer(call -> Flux.just(new ChatBucket(call.getArgument(0), call.getArgument(1))));
+
+        MessageWriteBehind writeBehind = mock(MessageWriteBehind.class, withSettings().stubOnly());
+        when(writeBehind.submit(any())).thenAnswer(call -> Mono.just(call.getArgument(0)));
+
+        UnreadCounterService unread = mock(UnreadCounterService.class, withSettings().stubOnly());
+        when(unread.onMessage(any())).thenReturn(Mono.empty());
+
+        RecentMessageBuffer recent = new RecentMessageBuffer(new SimpleMeterRegistry(), 256,
+                DataSize.ofMegabytes(64), Duration.ofMinutes(10));
+        recent.track(hotChat);
+        for (int i = 0; i < PAGE; i++) {
+            recent.append(Message.builder().chatId(hotChat).messageID(ids.generateId()).content("hello").build());
+        }
+
+        service = new MessageServiceImpl(repository, bucketIndex, writeBehind, unread, recent, clock,
+                new ScyllaMetrics(new SimpleMeterRegistry()), new SimpleMeterRegistry());
+        message = Message.builder().chatId(coldChat).messageID(ids.generateId()).content("hello").build();
+    }
+
+    @Benchmark
+    public Message sendAMessage() {
+        return service.sendAMessage(message).block();
+    }
+
+    @Benchmark
+    public List<Message> recentFromRepository() {
+        return service.getRecentMessages(coldChat, PAGE).collectList().block();
+    }
+
+    @Benchmark
+    public List<Message> recentFromRing() {
+        return service.getRecentMessages(hotChat, PAGE).collectList().block();
+    }
+}
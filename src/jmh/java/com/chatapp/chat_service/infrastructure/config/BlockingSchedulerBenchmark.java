@@ -0,0 +1,68 @@
+package com.chatapp.chat_service.infrastructure.config;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A burst of {@code concurrency} offloaded calls, each either a 200us
+ * blocking wait (a synchronous Redis round trip) or a short CPU task (parsing
+ * a large frame), on the virtual-thread scheduler against boundedElastic,
+ * whose 10 x cores threads queue everything beyond them.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class BlockingSchedulerBenchmark {
+
+    @Param({"16", "256", "2048"})
+    public int concurrency;
+
+    @Param({"virtual", "boundedElastic"})
+    public String scheduler;
+
+    private Scheduler target;
+
+    @Setup
+    public void setUp() {
+        target = scheduler.equals("virtual")
+                ? new BlockingSchedulerConfig().blockingScheduler()
+                : Schedulers.newBoundedElastic(Schedulers.DEFAULT_BOUNDED_ELASTIC_SIZE,
+                        Schedulers.DEFAULT_BOUNDED_ELASTIC_QUEUESIZE, "bench-elastic");
+    }
+
+    @TearDown
+    public void tearDown() {
+        target.dispose();
+    }
+
+    @Benchmark
+    public Long blockingCalls() {
+        return burst(() -> {
+            LockSupport.parkNanos(200_000);
+            return 1L;
+        });
+    }
+
+    @Benchmark
+    public Long cpuTasks() {
+        return burst(() -> {
+            Blackhole.consumeCPU(2_000);
+            return 1L;
+        });
+    }
+
+    private Long burst(Callable<Long> task) {
+        return Flux.range(0, concurrency)
+                .flatMap(i -> Mono.fromCallable(task).subscribeOn(target), concurrency)
+                .count()
+                .block();
+    }
+}
@@ -0,0 +1,35 @@
+package com.chatapp.chat_service.infrastructure.config;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Clock;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ids per second under contention: the single-CAS UUIDv7 generator against
+ * {@link UUID#randomUUID()}, which goes through SecureRandom.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Threads(8)
+public class IdGeneratorBenchmark {
+
+    private TimeOrderedIdGenerator generator;
+
+    @Setup
+    public void setUp() {
+        generator = new TimeOrderedIdGenerator(Clock.systemUTC());
+    }
+
+    @Benchmark
+    public UUID timeOrdered() {
+        return generator.generateId();
+    }
+
+    @Benchmark
+    public UUID random() {
+        return UUID.randomUUID();
+    }
+}
@@ -0,0 +1,66 @@
+package com.chatapp.chat_service.infrastructure.config;
+
+import brave.Tracing;
+import brave.sampler.Sampler;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationHandler;
+import io.micrometer.observation.ObservationRegistry;
+import io.micrometer.tracing.brave.bridge.BraveBaggageManager;
+import io.micrometer.tracing.brave.bridge.BraveCurrentTraceContext;
+import io.micrometer.tracing.brave.bridge.BraveTracer;
+import io.micrometer.tracing.handler.DefaultTracingObservationHandler;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of one traced message send (a root observation with one child, as a
+ * WebSocket frame plus its write) at 0%, 1% and 100% sampling, against
+ * observations switched off entirely. Spans go to a Brave tracer without a
+ * reporter, so the numbers cover span bookkeeping but not export.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class TraceSamplingBenchmark {
+
+    @Param({"0", "0.01", "1"})
+    public double probability;
+
+    private Tracing tracing;
+    private ObservationRegistry registry;
+
+    @Setup
+    public void setUp() {
+        tracing = Tracing.newBuilder().sampler(Sampler.ALWAYS_SAMPLE).build();
+        BraveTracer tracer = new BraveTracer(tracing.tracer(),
+                new BraveCurrentTraceContext(tracing.currentTraceContext()), new BraveBaggageManager());
+
+        registry = ObservationRegistry.create();
+        registry.observationConfig().observationHandler(new ObservationHandler.FirstMatchingCompositeObservationHandler(
+                new TraceSampler(probability, 0, Map.of()),
+                new DefaultTracingObservationHandler(tracer)));
+    }
+
+    @TearDown
+    public void tearDown() {
+        tracing.close();
+    }
+
+    @Benchmark
+    public void sampled(Blackhole bh) {
+        send(registry, bh);
+    }
+
+    @Benchmark
+    public void observationsOff(Blackhole bh) {
+        send(ObservationRegistry.NOOP, bh);
+    }
+
+    private static void send(ObservationRegistry registry, Blackhole bh) {
+        Observation.createNotStarted("chat.message.send", registry).observe(() ->
+                Observation.createNotStarted("chat.message.write", registry).observe(() -> bh.consume(registry)));
+    }
+}
@@ -0,0 +1,44 @@
+package com.chatapp.chat_service.infrastructure.mapper;
+
+import com.chatapp.chat_service.api.dto.CreateGroupDto;
+import com.chatapp.chat_service.api.dto.GroupDto;
+import com.chatapp.chat_service.domain.model.Group;
+import com.chatapp.chat_service.infrastructure.config.TimeOrderedIdGenerator;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Clock;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class GroupMapperBenchmark {
+
+    @Param({"10", "1000"})
+    int members;
+
+    private GroupMapper mapper;
+    private CreateGroupDto dto;
+    private Group group;
+
+    @Setup
+    public void setUp() {
+        mapper = new GroupMapper(Clock.systemUTC(), new TimeOrderedIdGenerator(Clock.systemUTC()));
+        List<UUID> ids = Stream.generate(UUID::randomUUID).limit(members).toList();
+        dto = new CreateGroupDto("title", "description", UUID.randomUUID(), ids);
+        group = mapper.toDomain(dto);
+    }
+
+    @Benchmark
+    public Group toDomain() {
+        return mapper.toDomain(dto);
+    }
+
+    @Benchmark
+    public GroupDto toDto() {
+        return mapper.toDto(group);
+    }
+}
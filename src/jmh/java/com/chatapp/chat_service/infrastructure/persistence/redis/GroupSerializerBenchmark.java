@@ -0,0 +1,55 @@
+package com.chatapp.chat_service.infrastructure.persistence.redis;
+
+import com.chatapp.chat_service.domain.model.Group;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.time.Instant;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * The group value codecs {@link GroupRedisConfig} can configure. Encoded
+ * size is printed once per trial; time and allocation come from JMH and
+ * the gc profiler.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class GroupSerializerBenchmark {
+
+    @Param({"JSON", "COMPACT"})
+    RedisValueCodec codec;
+
+    @Param({"10", "1000"})
+    int members;
+
+    private RedisSerializer<Group> serializer;
+    private Group group;
+    private byte[] encoded;
+
+    @Setup
+    public void setUp() {
+        GroupRedisConfig config = new GroupRedisConfig();
+        serializer = config.groupValueSerializer(config.redisObjectMapper(), codec, 1024);
+        Set<UUID> ids = Stream.generate(UUID::randomUUID).limit(members).collect(Collectors.toCollection(LinkedHashSet::new));
+        group = new Group(UUID.randomUUID(), "title", "description", UUID.randomUUID(), ids,
+                Instant.now(), Instant.now());
+        encoded = serializer.serialize(group);
+        System.out.printf("%n%s, %d members: %d bytes%n", codec, members, encoded.length);
+    }
+
+    @Benchmark
+    public byte[] serialize() {
+        return serializer.serialize(group);
+    }
+
+    @Benchmark
+    public Group deserialize() {
+        return serializer.deserialize(encoded);
+    }
+}
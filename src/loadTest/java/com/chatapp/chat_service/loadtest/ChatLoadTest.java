@@ -0,0 +1,233 @@
+package com.chatapp.chat_service.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.http.client.WebsocketClientSpec;
+
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Single-box load test: thousands of WebSocket clients spread over group
+ * chats, each sending at a fixed rate. Every message carries its send time
+ * so receivers record send-to-receive latency; receivers also ack what they
+ * read, which exercises the receipt coalescer.
+ *
+ * <pre>
+ * ./gradlew loadTest -Ploadtest.clients=2000 -Ploadtest.rooms=200 -Ploadtest.rate=5000
+ * ./gradlew loadTest -Ploadtest.target=http://localhost:9393   # against a running stack
+ * </pre>
+ */
+public final class ChatLoadTest {
+
+    private static final ObjectMapper JSON = new ObjectMapper();
+    private static final long MAX_LATENCY_MICROS = TimeUnit.MINUTES.toMicros(1);
+
+    private final LoadTestConfig config;
+    private final java.net.http.HttpClient http = java.net.http.HttpClient.newHttpClient();
+    private final Recorder latency = new Recorder(MAX_LATENCY_MICROS, 3);
+    private final LongAdder sent = new LongAdder();
+    private final LongAdder received = new LongAdder();
+    private final LongAdder connected = new LongAdder();
+    private final Sinks.Empty<Void> stop = Sinks.empty();
+
+    private ChatLoadTest(LoadTestConfig config) {
+        this.config = config;
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadTestConfig config = LoadTestConfig.fromSystemProperties();
+        if (!config.target().isBlank()) {
+            new ChatLoadTest(config).run(config.target());
+            return;
+        }
+        try (LocalEnvironment environment = new LocalEnvironment()) {
+            new ChatLoadTest(config).run(environment.start(config.appJar()));
+        }
+    }
+
+    private void run(String baseUrl) throws Exception {
+        System.out.printf("target %s: %d clients, %d rooms, %d msg/s, warmup %s, duration %s%n",
+                baseUrl, config.clients(), config.rooms(), config.rate(), config.warmup(), config.duration());
+
+        List<UUID> users = new ArrayList<>(config.clients());
+        for (int i = 0; i < config.clients(); i++) {
+            users.add(UUID.randomUUID());
+        }
+        List<UUID> rooms = createRooms(baseUrl, users);
+
+        // the membership index joins every client to its room on connect
+        String wsUrl = baseUrl.replaceFirst("^http", "ws") + "/ws/chat?userId=";
+        HttpClient ws = HttpClient.create();
+        Flux.range(0, users.size())
+                .flatMap(i -> connect(ws, wsUrl, users.get(i), rooms.get(i % rooms.size())).then(), 256)
+                .subscribe();
+
+        long connectDeadline = System.nanoTime() + TimeUnit.MINUTES.toNanos(2);
+        while (connected.sum() < users.size() && System.nanoTime() < connectDeadline) {
+            Thread.sleep(200);
+        }
+        System.out.printf("connected %d/%d%n", connected.sum(), users.size());
+
+        Thread.sleep(config.warmup().toMillis());
+
+        Map<String, Double> before = serverMetrics(baseUrl);
+        latency.reset();
+        long sentBefore = sent.sum();
+        long receivedBefore = received.sum();
+        long start = System.nanoTime();
+
+        Thread.sleep(config.duration().toMillis());
+
+        double seconds = (System.nanoTime() - start) / 1e9;
+        Histogram histogram = latency.getIntervalHistogram();
+        long sentCount = sent.sum() - sentBefore;
+        long receivedCount = received.sum() - receivedBefore;
+        Map<String, Double> after = serverMetrics(baseUrl);
+        stop.tryEmitEmpty();
+
+        report(histogram, sentCount / seconds, receivedCount / seconds, before, after, seconds);
+    }
+
+    /** One group per room, members assigned round robin, first member is admin. */
+    private List<UUID> createRooms(String baseUrl, List<UUID> users) throws Exception {
+        int roomCount = Math.min(config.rooms(), users.size());
+        List<List<UUID>> members = new ArrayList<>(roomCount);
+        for (int r = 0; r < roomCount; r++) {
+            members.add(new ArrayList<>());
+        }
+        for (int i = 0; i < users.size(); i++) {
+            members.get(i % roomCount).add(users.get(i));
+        }
+
+        List<UUID> rooms = new ArrayList<>(roomCount);
+        for (int r = 0; r < roomCount; r++) {
+            List<UUID> roomMembers = members.get(r);
+            ObjectNode body = JSON.createObjectNode()
+                    .put("title", "load-" + r)
+                    .put("description", "load test room")
+                    .put("admin", roomMembers.getFirst().toString());
+            roomMembers.forEach(m -> body.withArray("members").add(m.toString()));
+
+            HttpResponse<String> response = http.send(HttpRequest.newBuilder(URI.create(baseUrl + "/api/v1/group"))
+                            .header("Content-Type", "application/json")
+                            .POST(HttpRequest.BodyPublishers.ofString(JSON.writeValueAsString(body)))
+                            .build(),
+                    HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() / 100 != 2) {
+                throw new IllegalStateException("Creating room failed: " + response.statusCode() + " " + response.body());
+            }
+            rooms.add(UUID.fromString(JSON.readTree(response.body()).path("groupID").asText()));
+        }
+        return rooms;
+    }
+
+    private Flux<Void> connect(HttpClient ws, String wsUrl, UUID userId, UUID chatId) {
+        String sender = userId.toString();
+        String chat = chatId.toString();
+
+        return ws.websocket(WebsocketClientSpec.builder().maxFramePayloadLength(1 << 16).build())
+                .uri(wsUrl + sender)
+                .handle((in, out) -> {
+                    connected.increment();
+                    Flux<String> sends = Flux.interval(config.sendPeriod())
+                            .onBackpressureDrop()
+                            .map(tick -> {
+                                sent.increment();
+                                return "{\"chatId\":\"" + chat + "\",\"senderID\":\"" + sender
+                                        + "\",\"content\":\"" + System.nanoTime() + "\"}";
+                            })
+                            .takeUntilOther(stop.asMono());
+
+                    // acks are fire-and-forget; they go out on the same connection
+                    Sinks.Many<String> acks = Sinks.many().unicast().onBackpressureBuffer();
+                    Mono<Void> receive = in.receive().asString()
+                            .doOnNext(frame -> onFrame(frame, sender, acks))
+                            .takeUntilOther(stop.asMono())
+                            .doFinally(signal -> acks.tryEmitComplete())
+                            .then();
+
+                    return Mono.when(receive, out.sendString(Flux.merge(sends, acks.asFlux())).then());
+                })
+                .onErrorResume(err -> {
+                    System.err.println("client " + sender + ": " + err.getMessage());
+                    return Flux.empty();
+                });
+    }
+
+    private void onFrame(String frame, String self, Sinks.Many<String> acks) {
+        long now = System.nanoTime();
+        try {
+            JsonNode node = JSON.readTree(frame);
+            // receipts, gaps and own echoes are not fan-out deliveries
+            if (node.has("type") || self.equals(node.path("senderID").asText())) {
+                return;
+            }
+            long sentAt = Long.parseLong(node.path("content").asText());
+            latency.recordValue(Math.clamp(TimeUnit.NANOSECONDS.toMicros(now - sentAt), 0, MAX_LATENCY_MICROS));
+            received.increment();
+            acks.tryEmitNext("{\"type\":\"ack\",\"chatId\":\"" + node.path("chatId").asText()
+                    + "\",\"messageID\":\"" + node.path("messageID").asText() + "\",\"status\":\"READ\"}");
+        } catch (Exception e) {
+            // not one of ours
+        }
+    }
+
+    private Map<String, Double> serverMetrics(String baseUrl) {
+        return Map.of(
+                "alloc", metric(baseUrl, "jvm.gc.memory.allocated"),
+                "acks", metric(baseUrl, "chat.receipts.acks"),
+                "writes", metric(baseUrl, "chat.receipts.writes")
+        );
+    }
+
+    private double metric(String baseUrl, String name) {
+        try {
+            HttpResponse<String> response = http.send(
+                    HttpRequest.newBuilder(URI.create(baseUrl + "/actuator/metrics/" + name)).build(),
+                    HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() != 200) {
+                return Double.NaN;
+            }
+            for (JsonNode measurement : JSON.readTree(response.body()).path("measurements")) {
+                if ("COUNT".equals(measurement.path("statistic").asText())) {
+                    return measurement.path("value").asDouble();
+                }
+            }
+        } catch (Exception e) {
+            // metric unavailable on this target
+        }
+        return Double.NaN;
+    }
+
+    private static void report(Histogram histogram, double sentRate, double receivedRate,
+                               Map<String, Double> before, Map<String, Double> after, double seconds) {
+        System.out.println("---- results ----");
+        System.out.printf("sent        %,.0f msg/s%n", sentRate);
+        System.out.printf("delivered   %,.0f msg/s%n", receivedRate);
+        System.out.printf("latency us  p50=%d p99=%d p999=%d max=%d (n=%d)%n",
+                histogram.getValueAtPercentile(50), histogram.getValueAtPercentile(99),
+                histogram.getValueAtPercentile(99.9), histogram.getMaxValue(), histogram.getTotalCount());
+        System.out.printf("server alloc %,.1f MB/s%n",
+                (after.get("alloc") - before.get("alloc")) / seconds / (1024 * 1024));
+        double acks = after.get("acks") - before.get("acks");
+        double writes = after.get("writes") - before.get("writes");
+        System.out.printf("receipts    %,.0f acks -> %,.0f writes (%.1fx coalesced)%n",
+                acks, writes, writes > 0 ? acks / writes : Double.NaN);
+    }
+}
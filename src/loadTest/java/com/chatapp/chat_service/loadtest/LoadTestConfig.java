@@ -0,0 +1,36 @@
+package com.chatapp.chat_service.loadtest;
+
+import java.time.Duration;
+
+/**
+ * Load test knobs, read from {@code loadtest.*} system properties
+ * ({@code ./gradlew loadTest -Ploadtest.clients=5000 ...}).
+ *
+ * @param target    base URL of a running service; empty starts a local one
+ * @param appJar    boot jar started in a child JVM when there is no target
+ * @param clients   WebSocket connections
+ * @param rooms     group chats the clients are spread over, round robin
+ * @param rate      messages per second sent across all clients
+ * @param warmup    traffic before measuring
+ * @param duration  measured traffic
+ */
+record LoadTestConfig(String target, String appJar, int clients, int rooms, int rate,
+                      Duration warmup, Duration duration) {
+
+    static LoadTestConfig fromSystemProperties() {
+        return new LoadTestConfig(
+                System.getProperty("loadtest.target", ""),
+                System.getProperty("loadtest.app-jar", ""),
+                Integer.getInteger("loadtest.clients", 1000),
+                Integer.getInteger("loadtest.rooms", 100),
+                Integer.getInteger("loadtest.rate", 2000),
+                Duration.parse("PT" + System.getProperty("loadtest.warmup", "10s")),
+                Duration.parse("PT" + System.getProperty("loadtest.duration", "60s"))
+        );
+    }
+
+    /** Interval between two sends of one client. */
+    Duration sendPeriod() {
+        return Duration.ofNanos(Math.max(1, 1_000_000_000L * clients / Math.max(1, rate)));
+    }
+}
@@ -0,0 +1,127 @@
+package com.chatapp.chat_service.loadtest;
+
+import com.redis.testcontainers.RedisContainer;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.containers.wait.strategy.Wait;
+import org.testcontainers.utility.DockerImageName;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * ScyllaDB and Redis in containers plus the service in its own JVM, so the
+ * allocation rate read from its actuator belongs to the server alone.
+ */
+final class LocalEnvironment implements AutoCloseable {
+
+    private static final String SCYLLA_IMAGE = "scylladb/scylla:5.2";
+    private static final String REDIS_IMAGE = "redis:7-alpine";
+    private static final Path INIT_CQL = Path.of("scylladb", "init.cql");
+
+    private final GenericContainer<?> scylla;
+    private final RedisContainer redis;
+    private Process app;
+    private String baseUrl;
+
+    LocalEnvironment() {
+        scylla = new GenericContainer<>(DockerImageName.parse(SCYLLA_IMAGE))
+                .withCommand("--smp", "1", "--memory", "750M", "--overprovisioned", "1")
+                .withExposedPorts(9042)
+                .waitingFor(Wait.forListeningPort().withStartupTimeout(Duration.ofMinutes(3)));
+        redis = new RedisContainer(DockerImageName.parse(REDIS_IMAGE));
+    }
+
+    String start(String appJar) throws Exception {
+        if (appJar.isBlank() || !new File(appJar).isFile()) {
+            throw new IllegalStateException("loadtest.app-jar must point to the boot jar: " + appJar);
+        }
+        scylla.start();
+        redis.start();
+        applySchema();
+
+        int port = freePort();
+        List<String> command = new ArrayList<>(List.of(
+                ProcessHandle.current().info().command().orElse("java"),
+                "-jar", appJar,
+                "--server.port=" + port,
+                "--spring.cassandra.contact-points=" + scylla.getHost(),
+                "--spring.cassandra.port=" + scylla.getMappedPort(9042),
+                "--spring.data.redis.host=" + redis.getHost(),
+                "--spring.data.redis.port=" + redis.getFirstMappedPort(),
+                "--management.tracing.export.enabled=false",
+                "--logging.level.root=WARN"
+        ));
+        app = new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .redirectOutput(new File("build/loadtest-app.log"))
+                .start();
+        baseUrl = "http://localhost:" + port;
+        awaitHealthy(Duration.ofMinutes(2));
+        return baseUrl;
+    }
+
+    // init.cql through cqlsh inside the container, the same way docker-compose seeds it
+    private void applySchema() throws Exception {
+        String cql = Files.readString(INIT_CQL);
+        for (int attempt = 0; attempt < 30; attempt++) {
+            var result = scylla.execInContainer("cqlsh", "-e", cql);
+            if (result.getExitCode() == 0 || result.getStderr().contains("already exists")) {
+                return;
+            }
+            // cqlsh reports failed statements but still applies the rest
+            if (result.getStderr().contains("InvalidRequest")) {
+                System.err.println("init.cql: " + result.getStderr().strip());
+                return;
+            }
+            Thread.sleep(2_000);
+        }
+        throw new IllegalStateException("ScyllaDB did not accept the schema");
+    }
+
+    private void awaitHealthy(Duration timeout) throws Exception {
+        HttpClient http = HttpClient.newHttpClient();
+        long deadline = System.nanoTime() + timeout.toNanos();
+        while (System.nanoTime() < deadline) {
+            if (!app.isAlive()) {
+                throw new IllegalStateException("Service exited, see build/loadtest-app.log");
+            }
+            try {
+                HttpResponse<Void> response = http.send(
+                        HttpRequest.newBuilder(URI.create(baseUrl + "/actuator/health")).build(),
+                        HttpResponse.BodyHandlers.discarding());
+                if (response.statusCode() == 200) {
+                    return;
+                }
+            } catch (IOException e) {
+                // not listening yet
+            }
+            Thread.sleep(1_000);
+        }
+        throw new IllegalStateException("Service did not become healthy within " + timeout);
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    @Override
+    public void close() {
+        if (app != null) {
+            app.destroy();
+        }
+        redis.stop();
+        scylla.stop();
+    }
+}
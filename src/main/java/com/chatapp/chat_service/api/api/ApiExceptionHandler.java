@@ -0,0 +1,25 @@
+package com.chatapp.chat_service.api.api;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ProblemDetail;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+/**
+ * Services reject bad input (limits, malformed or foreign cursors) with
+ * {@link IllegalArgumentException} before touching any store, so it is
+ * the caller's mistake and answered with 400 instead of a 500.
+ */
+@Slf4j
+@RestControllerAdvice
+public class ApiExceptionHandler {
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public ProblemDetail badRequest(IllegalArgumentException ex) {
+        log.debug("Rejected request: {}", ex.getMessage());
+        return ProblemDetail.forStatusAndDetail(HttpStatus.BAD_REQUEST, ex.getMessage());
+    }
+}
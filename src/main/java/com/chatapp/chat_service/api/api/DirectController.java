@@ -0,0 +1,28 @@
+package com.chatapp.chat_service.api.api;
+
+import com.chatapp.chat_service.api.dto.CreateDirectDto;
+import com.chatapp.chat_service.api.dto.DirectDto;
+import com.chatapp.chat_service.infrastructure.persistence.jpa.DirectService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
+
+import java.util.UUID;
+
+@RestController
+@RequestMapping("/api/v1/direct")
+@RequiredArgsConstructor
+public class DirectController {
+
+    private final DirectService service;
+
+    @PostMapping
+    public Mono<DirectDto> getOrCreateDirect(@RequestBody CreateDirectDto dto) {
+        return service.getOrCreateDirect(dto.userId(), dto.peerId());
+    }
+
+    @GetMapping("/{chatId}")
+    public Mono<DirectDto> getDirectById(@PathVariable UUID chatId) {
+        return service.getDirectById(chatId);
+    }
+}
@@ -2,11 +2,14 @@ package com.chatapp.chat_service.api.api;
 
 import com.chatapp.chat_service.api.dto.CreateGroupDto;
 import com.chatapp.chat_service.api.dto.GroupDto;
+import com.chatapp.chat_service.api.dto.GroupPageDto;
 import com.chatapp.chat_service.infrastructure.persistence.jpa.GroupService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import java.util.List;
 import java.util.UUID;
 
 @RestController
@@ -26,13 +29,41 @@ public class GroupController {
         return service.getGroupById(id);
     }
 
+    @PostMapping("/batch")
+    public Flux<GroupDto> getGroupsByIds(@RequestBody List<UUID> ids) {
+        return service.getGroupsByIds(ids);
+    }
+
+    // the first groups as a plain array, as before; /page walks the rest with a cursor
     @GetMapping
     public Flux<GroupDto> getAll() {
-        return service.getAllGroup(0 , 10);
+        return service.getGroupPage(null, 10)
+                .flatMapIterable(GroupPageDto::groups);
+    }
+
+    @GetMapping("/page")
+    public Mono<GroupPageDto> getPage(@RequestParam(required = false) String cursor,
+                                      @RequestParam(defaultValue = "20") int size) {
+        return service.getGroupPage(cursor, size);
+    }
+
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<GroupDto> exportAll() {
+        return service.exportAll();
     }
 
     @PutMapping("/{groupID}")
     public Mono<GroupDto> updateGroup(@PathVariable UUID groupID , @RequestBody CreateGroupDto dto){
         return service.updateGroup(groupID, dto);
     }
+
+    @PostMapping("/{groupID}/members")
+    public Mono<Void> addMembers(@PathVariable UUID groupID , @RequestBody List<UUID> userIds) {
+        return service.addMembers(groupID, userIds);
+    }
+
+    @DeleteMapping("/{groupID}/members")
+    public Mono<Void> removeMembers(@PathVariable UUID groupID , @RequestBody List<UUID> userIds) {
+        return service.removeMembers(groupID, userIds);
+    }
 }
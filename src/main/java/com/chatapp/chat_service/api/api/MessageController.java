@@ -0,0 +1,45 @@
+package com.chatapp.chat_service.api.api;
+
+import com.chatapp.chat_service.api.dto.MessagePageDto;
+import com.chatapp.chat_service.domain.model.Message;
+import com.chatapp.chat_service.infrastructure.persistence.jpa.MessageService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.UUID;
+
+@RestController
+@RequestMapping("/api/v1/chat/{chatId}/messages")
+@RequiredArgsConstructor
+public class MessageController {
+
+    private final MessageService service;
+
+    /**
+     * History page. Without cursors returns the newest page; pass the returned
+     * {@code nextCursor} as {@code before} to go back in time, or a known
+     * messageID as {@code after} to load newer messages (oldest first).
+     */
+    @GetMapping
+    public Mono<MessagePageDto> getHistory(@PathVariable UUID chatId,
+                                           @RequestParam(required = false) UUID before,
+                                           @RequestParam(required = false) UUID after,
+                                           @RequestParam(defaultValue = "50") int limit) {
+        if (before != null && after != null) {
+            return Mono.error(new IllegalArgumentException("Use either 'before' or 'after'"));
+        }
+        Flux<Message> page = after != null
+                ? service.getMessagesAfter(chatId, after, limit)
+                : service.getMessagesBefore(chatId, before, limit);
+
+        return page.collectList()
+                .map(messages -> new MessagePageDto(messages, nextCursor(messages, limit)));
+    }
+
+    private UUID nextCursor(List<Message> messages, int limit) {
+        return messages.size() < limit ? null : messages.getLast().getMessageID();
+    }
+}
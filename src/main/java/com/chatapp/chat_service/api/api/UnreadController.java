@@ -0,0 +1,22 @@
+package com.chatapp.chat_service.api.api;
+
+import com.chatapp.chat_service.infrastructure.persistence.jpa.UnreadCounterService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+import java.util.UUID;
+
+@RestController
+@RequestMapping("/api/v1/unread")
+@RequiredArgsConstructor
+public class UnreadController {
+
+    private final UnreadCounterService service;
+
+    @GetMapping("/{userId}")
+    public Mono<Map<UUID, Long>> getUnreadCounts(@PathVariable UUID userId) {
+        return service.getUnreadCounts(userId);
+    }
+}
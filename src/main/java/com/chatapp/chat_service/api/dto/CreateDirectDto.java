@@ -0,0 +1,11 @@
+package com.chatapp.chat_service.api.dto;
+
+import java.util.UUID;
+
+public record CreateDirectDto(
+
+        UUID userId,
+
+        UUID peerId
+) {
+}
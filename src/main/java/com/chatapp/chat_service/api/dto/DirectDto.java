@@ -0,0 +1,12 @@
+package com.chatapp.chat_service.api.dto;
+
+import java.util.List;
+import java.util.UUID;
+
+public record DirectDto(
+
+        UUID chatId,
+
+        List<UUID> participants
+) {
+}
@@ -0,0 +1,11 @@
+package com.chatapp.chat_service.api.dto;
+
+import java.util.List;
+
+public record GroupPageDto(
+
+        List<GroupDto> groups,
+
+        String nextCursor
+) {
+}
@@ -0,0 +1,14 @@
+package com.chatapp.chat_service.api.dto;
+
+import com.chatapp.chat_service.domain.model.Message;
+
+import java.util.List;
+import java.util.UUID;
+
+public record MessagePageDto(
+
+        List<Message> messages,
+
+        UUID nextCursor
+) {
+}
@@ -0,0 +1,196 @@
+package com.chatapp.chat_service.api.socketApi;
+
+import com.chatapp.chat_service.domain.model.Message;
+import com.chatapp.chat_service.domain.service.RecentMessageBuffer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.ReactiveSubscription;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.ReactiveRedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Cluster fan-out on top of the local {@link ChatRoomRegistry}.
+ * Every message is delivered to local sessions directly and published once
+ * to the Redis channel of its chat; other nodes relay it to their own rooms.
+ * A node only subscribes to channels of chats that have local listeners,
+ * and keeps a {@link RecentMessageBuffer} ring for exactly those chats.
+ * <p>
+ * Envelope on the channel: {@code v2 \n nodeId \n messageId \n payload}, where
+ * messageId is empty for frames that are not chat messages. The unversioned
+ * {@code nodeId \n payload} of older nodes is still accepted, and can still be
+ * published with {@code chat.fanout.envelope=v1} while a rolling upgrade has
+ * old nodes in the cluster.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ChatFanout {
+
+    private static final String CHANNEL_PREFIX = "chat:";
+    private static final char SEPARATOR = '\n';
+    private static final String V2 = "v2" + SEPARATOR;
+
+    private final ChatRoomRegistry rooms;
+    private final ReactiveStringRedisTemplate redisTemplate;
+    private final ReactiveRedisMessageListenerContainer listenerContainer;
+    private final RecentMessageBuffer recentMessages;
+    private final ObjectMapper objectMapper;
+    private final String nodeId = UUID.randomUUID().toString();
+    private final ConcurrentHashMap<UUID, Disposable> subscriptions = new ConcurrentHashMap<>();
+
+    // v1 | v2
+    @Value("${chat.fanout.envelope:v2}")
+    private String envelopeVersion = "v2";
+
+    // first delay before re-subscribing a chat channel whose subscription failed; doubles up to a minute
+    @Value("${chat.fanout.resubscribe-backoff:1s}")
+    private Duration resubscribeBackoff = Duration.ofSeconds(1);
+
+    public void connect(ChatSession session) {
+        rooms.register(session);
+    }
+
+    public void disconnect(ChatSession session) {
+        leaveAll(session);
+        rooms.unregister(session);
+    }
+
+    public void join(UUID chatId, ChatSession session) {
+        rooms.join(chatId, session);
+        syncSubscription(chatId);
+    }
+
+    public void leave(UUID chatId, ChatSession session) {
+        rooms.leave(chatId, session);
+        syncSubscription(chatId);
+    }
+
+    public void leaveAll(ChatSession session) {
+        for (UUID chatId : session.getChats()) {
+            leave(chatId, session);
+        }
+    }
+
+    public Mono<Void> publish(UUID chatId, byte[] payload) {
+        return publish(chatId, null, payload);
+    }
+
+    public Mono<Void> publish(UUID chatId, UUID messageId, byte[] payload) {
+        if (chatId == null) {
+            return Mono.empty();
+        }
+        rooms.publish(chatId, messageId, payload);
+        String envelope = envelope(messageId, payload);
+        return redisTemplate.convertAndSend(CHANNEL_PREFIX + chatId, envelope)
+                .onErrorResume(err -> {
+                    log.warn("Redis publish failed for chat {}: {}", chatId, err.getMessage());
+                    return Mono.empty();
+                })
+                .then();
+    }
+
+    public boolean isSubscribed(UUID chatId) {
+        return subscriptions.containsKey(chatId);
+    }
+
+    // Every registry change is followed by a sync, and each sync re-reads the
+    // registry under the per-key lock, so the last one always wins.
+    private void syncSubscription(UUID chatId) {
+        subscriptions.compute(chatId, (id, current) -> {
+            boolean listening = rooms.hasListeners(id);
+            if (listening && current == null) {
+                recentMessages.track(id);
+                return subscribe(id);
+            }
+            if (!listening && current != null) {
+                current.dispose();
+                recentMessages.untrack(id);
+                return null;
+            }
+            return current;
+        });
+    }
+
+    // a dropped subscription is re-established for as long as the chat has listeners;
+    // frames published while it was down are not replayed
+    private Disposable subscribe(UUID chatId) {
+        return Flux.defer(() -> listenerContainer.receive(ChannelTopic.of(CHANNEL_PREFIX + chatId)))
+                .map(ReactiveSubscription.Message::getMessage)
+                .retryWhen(Retry.backoff(Long.MAX_VALUE, resubscribeBackoff)
+                        .maxBackoff(Duration.ofMinutes(1))
+                        .transientErrors(true)
+                        .doBeforeRetry(signal -> log.warn("Redis subscription for chat {} failed, re-subscribing: {}",
+                                chatId, signal.failure().getMessage())))
+                .subscribe(
+                        envelope -> onRemote(chatId, envelope),
+                        err -> {
+                            log.error("Redis subscription for chat {} gave up", chatId, err);
+                            // drop the dead entry so the next join subscribes again
+                            subscriptions.computeIfPresent(chatId, (id, current) -> current.isDisposed() ? null : current);
+                        }
+                );
+    }
+
+    String envelope(UUID messageId, byte[] payload) {
+        String body = new String(payload, StandardCharsets.UTF_8);
+        if ("v1".equals(envelopeVersion)) {
+            return nodeId + SEPARATOR + body;
+        }
+        return V2 + nodeId + SEPARATOR + (messageId == null ? "" : messageId.toString()) + SEPARATOR + body;
+    }
+
+    void onRemote(UUID chatId, String envelope) {
+        boolean v2 = envelope.startsWith(V2);
+        int start = v2 ? V2.length() : 0;
+        int split = envelope.indexOf(SEPARATOR, start);
+        // v1 has no messageId field: the payload starts right after the node id
+        int idEnd = !v2 || split < 0 ? split : envelope.indexOf(SEPARATOR, split + 1);
+        if (idEnd < 0 || (split - start == nodeId.length() && envelope.startsWith(nodeId, start))) {
+            return; // own message, already delivered locally
+        }
+        UUID messageId = idEnd == split ? null : parseUuid(envelope.substring(split + 1, idEnd));
+        // encoded once per node, then shared by every local session of the room
+        byte[] payload = envelope.substring(idEnd + 1).getBytes(StandardCharsets.UTF_8);
+        if (messageId != null) {
+            remember(payload);
+        }
+        rooms.publish(chatId, messageId, payload);
+    }
+
+    // local sends reach the ring on the write path; remote ones only pass through here
+    private void remember(byte[] payload) {
+        try {
+            recentMessages.append(objectMapper.readValue(payload, Message.class));
+        } catch (Exception e) {
+            log.warn("Failed to decode relayed message: {}", e.getMessage());
+        }
+    }
+
+    private static UUID parseUuid(String value) {
+        try {
+            return UUID.fromString(value);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        subscriptions.values().forEach(Disposable::dispose);
+        subscriptions.clear();
+    }
+}
@@ -0,0 +1,126 @@
+package com.chatapp.chat_service.api.socketApi;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Local room registry: chatId -> sessions currently listening to that chat.
+ * Fan-out of a message touches only the sessions of its room, so the cost
+ * scales with the room size instead of the total number of connections.
+ */
+@Slf4j
+@Component
+public class ChatRoomRegistry implements MeterBinder {
+
+    private final ConcurrentHashMap<UUID, Set<ChatSession>> rooms = new ConcurrentHashMap<>();
+    private final Set<ChatSession> sessions = ConcurrentHashMap.newKeySet();
+
+    // totals of sessions that already disconnected, so the counters stay monotonic
+    private final LongAdder retiredQueued = new LongAdder();
+    private final LongAdder retiredDropped = new LongAdder();
+    private final LongAdder retiredSent = new LongAdder();
+    private final LongAdder retiredRejected = new LongAdder();
+
+    public void register(ChatSession session) {
+        sessions.add(session);
+    }
+
+    public void unregister(ChatSession session) {
+        leaveAll(session);
+        if (sessions.remove(session)) {
+            retiredQueued.add(session.queued());
+            retiredDropped.add(session.dropped());
+            retiredSent.add(session.sent());
+            retiredRejected.add(session.rejected());
+        }
+    }
+
+    public void join(UUID chatId, ChatSession session) {
+        // add inside compute so a concurrent leave() can't drop a room we are joining
+        rooms.compute(chatId, (id, members) -> {
+            Set<ChatSession> room = members != null ? members : ConcurrentHashMap.newKeySet();
+            room.add(session);
+            return room;
+        });
+        session.getChats().add(chatId);
+    }
+
+    public void leave(UUID chatId, ChatSession session) {
+        session.getChats().remove(chatId);
+        rooms.computeIfPresent(chatId, (id, members) -> {
+            members.remove(session);
+            return members.isEmpty() ? null : members;
+        });
+    }
+
+    public void leaveAll(ChatSession session) {
+        for (UUID chatId : session.getChats()) {
+            leave(chatId, session);
+        }
+    }
+
+    public int publish(UUID chatId, byte[] payload) {
+        return publish(chatId, null, payload);
+    }
+
+    public int publish(UUID chatId, UUID messageId, byte[] payload) {
+        if (chatId == null) {
+            return 0;
+        }
+        Set<ChatSession> room = rooms.get(chatId);
+        if (room == null) {
+            return 0;
+        }
+        int delivered = 0;
+        for (ChatSession session : room) {
+            if (session.deliver(chatId, messageId, payload)) {
+                delivered++;
+            }
+        }
+        return delivered;
+    }
+
+    public boolean hasListeners(UUID chatId) {
+        return rooms.containsKey(chatId);
+    }
+
+    public int roomCount() {
+        return rooms.size();
+    }
+
+    public Collection<ChatSession> sessions() {
+        return Collections.unmodifiableSet(sessions);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        registry.gauge("chat.ws.rooms", rooms, ConcurrentHashMap::size);
+        registry.gauge("chat.ws.sessions", sessions, Set::size);
+        FunctionCounter.builder("chat.ws.outbound.queued", this,
+                        r -> r.retiredQueued.sum() + r.sessions.stream().mapToLong(ChatSession::queued).sum())
+                .description("Frames accepted into session outbound queues")
+                .register(registry);
+        FunctionCounter.builder("chat.ws.outbound.dropped", this,
+                        r -> r.retiredDropped.sum() + r.sessions.stream().mapToLong(ChatSession::dropped).sum())
+                .description("Frames dropped by the slow-consumer policy")
+                .register(registry);
+        FunctionCounter.builder("chat.ws.outbound.rejected", this,
+                        r -> r.retiredRejected.sum() + r.sessions.stream().mapToLong(ChatSession::rejected).sum())
+                .description("Frames the outbound sink refused to emit, included in dropped")
+                .register(registry);
+        FunctionCounter.builder("chat.ws.outbound.sent", this,
+                        r -> r.retiredSent.sum() + r.sessions.stream().mapToLong(ChatSession::sent).sum())
+                .description("Frames handed to the socket")
+                .register(registry);
+    }
+}
@@ -0,0 +1,208 @@
+package com.chatapp.chat_service.api.socketApi;
+
+import lombok.Getter;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * One connected WebSocket client: who it is, which chat rooms it joined
+ * and the bounded outbound queue of frames that will be written to its socket.
+ */
+public class ChatSession {
+
+    public static final int DEFAULT_CAPACITY = 256;
+
+    // how long ids of a finished replay still suppress their live copies
+    private static final long REPLAY_DEDUPE_GRACE_NANOS = TimeUnit.SECONDS.toNanos(30);
+
+    public record Stats(String id, UUID userId, int chats, int backlog, long queued, long sent, long dropped) {}
+
+    @Getter
+    private final String id;
+    @Getter
+    private final UUID userId;
+    @Getter
+    private final Set<UUID> chats = ConcurrentHashMap.newKeySet();
+
+    private final SlowConsumerPolicy policy;
+    private final int capacity;
+    private final OutboundQueue queue;
+    private final Sinks.Many<OutboundFrame> outbound;
+    private final Runnable onSlowConsumer;
+    private final AtomicBoolean slow = new AtomicBoolean();
+
+    private final LongAdder queued = new LongAdder();
+    private final LongAdder sent = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+
+    // chats being replayed: live frames held back, ids already sent by the replay,
+    // and chats whose hold overflowed and lost frames
+    private final Map<UUID, List<OutboundFrame>> held = new HashMap<>();
+    private final Map<UUID, Set<UUID>> replayed = new HashMap<>();
+    private final Set<UUID> discarded = new HashSet<>();
+    // a message the replay read may have been persisted but not yet published,
+    // so the ids stay around for a grace period after the replay ends
+    private final Map<UUID, ReplayedIds> recentlyReplayed = new HashMap<>();
+
+    private record ReplayedIds(Set<UUID> ids, long expiresAt) {}
+
+    public ChatSession(String id, UUID userId) {
+        this(id, userId, DEFAULT_CAPACITY, SlowConsumerPolicy.DROP_OLDEST, () -> {});
+    }
+
+    public ChatSession(String id, UUID userId, int capacity, SlowConsumerPolicy policy, Runnable onSlowConsumer) {
+        this.id = id;
+        this.userId = userId;
+        this.policy = policy;
+        this.capacity = capacity;
+        this.onSlowConsumer = onSlowConsumer;
+        this.queue = new OutboundQueue(capacity, policy);
+        this.outbound = Sinks.many().unicast().onBackpressureBuffer(queue);
+    }
+
+    public boolean deliver(UUID chatId, byte[] payload) {
+        return deliver(chatId, null, payload);
+    }
+
+    /**
+     * Queues a frame for this session. Callers come from many fan-out threads,
+     * so emission is serialized per session instead of failing on contention.
+     * While the chat is being replayed the frame is held until {@link #endReplay};
+     * a hold that outgrows the queue capacity drops its oldest frames and
+     * {@link #endReplay} then tells the client about the gap.
+     */
+    public synchronized boolean deliver(UUID chatId, UUID messageId, byte[] payload) {
+        if (messageId != null && wasReplayed(chatId, messageId)) {
+            return true; // the client already has it
+        }
+        List<OutboundFrame> hold = held.get(chatId);
+        if (hold != null) {
+            if (hold.size() >= capacity) {
+                hold.removeFirst();
+                discarded.add(chatId);
+                rejected.increment();
+            }
+            hold.add(new OutboundFrame(chatId, messageId, payload));
+            return true;
+        }
+        return emit(new OutboundFrame(chatId, messageId, payload));
+    }
+
+    /** Starts holding live frames of {@code chatId}; call before joining its room. */
+    public synchronized void beginReplay(UUID chatId) {
+        held.putIfAbsent(chatId, new ArrayList<>());
+        replayed.putIfAbsent(chatId, new HashSet<>());
+    }
+
+    /**
+     * Records a missed message the caller is about to write ahead of
+     * {@link #outbound()}. Returns false if the replay already sent it.
+     */
+    public synchronized boolean replay(UUID chatId, UUID messageId) {
+        Set<UUID> sentIds = replayed.get(chatId);
+        if (sentIds != null && messageId != null && !sentIds.add(messageId)) {
+            return false;
+        }
+        sent.increment();
+        return true;
+    }
+
+    public void endReplay(UUID chatId) {
+        endReplay(chatId, null);
+    }
+
+    /**
+     * Releases the held live frames, skipping messages the replay already sent.
+     * If the hold had to drop frames, {@code gapFrame} goes out first so the
+     * client pages the missing range over REST.
+     */
+    public synchronized void endReplay(UUID chatId, byte[] gapFrame) {
+        List<OutboundFrame> hold = held.remove(chatId);
+        Set<UUID> sentIds = replayed.remove(chatId);
+        if (hold == null) {
+            return;
+        }
+        if (sentIds != null && !sentIds.isEmpty()) {
+            recentlyReplayed.put(chatId, new ReplayedIds(sentIds, System.nanoTime() + REPLAY_DEDUPE_GRACE_NANOS));
+        }
+        if (discarded.remove(chatId) && gapFrame != null) {
+            emit(new OutboundFrame(chatId, null, gapFrame));
+        }
+        for (OutboundFrame frame : hold) {
+            if (frame.messageId() == null || sentIds == null || !sentIds.contains(frame.messageId())) {
+                emit(frame);
+            }
+        }
+    }
+
+    private boolean wasReplayed(UUID chatId, UUID messageId) {
+        ReplayedIds recent = recentlyReplayed.get(chatId);
+        if (recent == null) {
+            return false;
+        }
+        if (System.nanoTime() - recent.expiresAt() > 0) {
+            recentlyReplayed.remove(chatId);
+            return false;
+        }
+        return recent.ids().contains(messageId);
+    }
+
+    private boolean emit(OutboundFrame frame) {
+        Sinks.EmitResult result = outbound.tryEmitNext(frame);
+        if (result.isSuccess()) {
+            queued.increment();
+            return true;
+        }
+        rejected.increment();
+        if (result == Sinks.EmitResult.FAIL_OVERFLOW
+                && policy == SlowConsumerPolicy.DISCONNECT
+                && slow.compareAndSet(false, true)) {
+            onSlowConsumer.run();
+        }
+        return false;
+    }
+
+    public Flux<byte[]> outbound() {
+        return outbound.asFlux()
+                .doOnNext(frame -> sent.increment())
+                .map(OutboundFrame::payload);
+    }
+
+    public synchronized void close() {
+        recentlyReplayed.clear();
+        outbound.tryEmitComplete();
+    }
+
+    public long queued() {
+        return queued.sum();
+    }
+
+    public long sent() {
+        return sent.sum();
+    }
+
+    /** Frames the sink refused, as opposed to ones evicted from the queue. */
+    public long rejected() {
+        return rejected.sum();
+    }
+
+    public long dropped() {
+        return rejected.sum() + queue.evicted();
+    }
+
+    public Stats stats() {
+        return new Stats(id, userId, chats.size(), queue.size(), queued.sum(), sent.sum(), dropped());
+    }
+}
@@ -0,0 +1,29 @@
+package com.chatapp.chat_service.api.socketApi;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * {@code /actuator/chatsessions}: per-session outbound queue counters.
+ */
+@Component
+@Endpoint(id = "chatsessions")
+@RequiredArgsConstructor
+public class ChatSessionsEndpoint {
+
+    private final ChatRoomRegistry registry;
+
+    public record Report(int rooms, int sessions, List<ChatSession.Stats> details) {}
+
+    @ReadOperation
+    public Report sessions() {
+        List<ChatSession.Stats> details = registry.sessions().stream()
+                .map(ChatSession::stats)
+                .toList();
+        return new Report(registry.roomCount(), details.size(), details);
+    }
+}
@@ -0,0 +1,41 @@
+package com.chatapp.chat_service.api.socketApi;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+/**
+ * Inbound side of the WebSocket path. Outbound frames, drops and active
+ * sessions are read from the sessions themselves by {@link ChatRoomRegistry}.
+ */
+@Component
+public class ChatSocketMetrics {
+
+    private final Counter inbound;
+    private final Counter parseFailures;
+    private final Counter sendFailures;
+
+    public ChatSocketMetrics(MeterRegistry meterRegistry) {
+        this.inbound = Counter.builder("chat.ws.inbound")
+                .description("Frames received from clients")
+                .register(meterRegistry);
+        this.parseFailures = Counter.builder("chat.ws.inbound.parse.failures")
+                .description("Inbound frames that were not valid JSON or not a message")
+                .register(meterRegistry);
+        this.sendFailures = Counter.builder("chat.ws.inbound.send.failures")
+                .description("Inbound messages that could not be stored or published")
+                .register(meterRegistry);
+    }
+
+    public void inbound() {
+        inbound.increment();
+    }
+
+    public void parseFailure() {
+        parseFailures.increment();
+    }
+
+    public void sendFailure() {
+        sendFailures.increment();
+    }
+}
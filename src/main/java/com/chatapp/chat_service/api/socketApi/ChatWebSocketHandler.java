@@ -1,67 +1,307 @@
 package com.chatapp.chat_service.api.socketApi;
 
 import com.chatapp.chat_service.domain.model.Message;
+import com.chatapp.chat_service.domain.model.ReceiptType;
+import com.chatapp.chat_service.domain.repository.DirectRepository;
+import com.chatapp.chat_service.domain.service.ReadReceiptCoalescer;
+import com.chatapp.chat_service.domain.service.RecentMessageBuffer;
+import com.chatapp.chat_service.infrastructure.persistence.jpa.GroupService;
+import com.chatapp.chat_service.infrastructure.persistence.jpa.MembershipService;
 import com.chatapp.chat_service.infrastructure.persistence.jpa.MessageService;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
+import org.springframework.util.IdGenerator;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.reactive.socket.CloseStatus;
 import org.springframework.web.reactive.socket.WebSocketHandler;
 import org.springframework.web.reactive.socket.WebSocketMessage;
 import org.springframework.web.reactive.socket.WebSocketSession;
+import org.springframework.web.util.UriComponentsBuilder;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
-import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Scheduler;
 
 import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 @Component
 @RequiredArgsConstructor
 @Slf4j
 public class ChatWebSocketHandler implements WebSocketHandler {
 
+    private static final byte[] EMPTY_JSON = {'{', '}'};
+
+    /** Sent instead of the rest of a replay that would not fit the outbound queue. */
+    public record GapFrame(String type, UUID chatId, UUID after) {}
+
     private final ObjectMapper objectMapper;
     private final MessageService service;
-    private final Sinks.Many<String> chatSink = Sinks.many().multicast().directBestEffort();
+    private final GroupService groupService;
+    private final MembershipService membershipService;
+    private final DirectRepository directRepository;
+    private final ChatFanout fanout;
+    private final IdGenerator idGenerator;
+    private final ReadReceiptCoalescer receipts;
+    private final RecentMessageBuffer recentMessages;
+    private final ChatSocketMetrics metrics;
+    private final Scheduler blockingScheduler;
+
+    @Value("${chat.ws.outbound.capacity:256}")
+    private int outboundCapacity;
+
+    @Value("${chat.ws.outbound.policy:DROP_OLDEST}")
+    private SlowConsumerPolicy slowConsumerPolicy;
+
+    // replayed messages per connection, shared by all resumed chats
+    @Value("${chat.ws.resume.max-replay:200}")
+    private int maxReplay;
+
+    // frames at least this long are parsed off the event loop
+    @Value("${chat.ws.inbound.offload-threshold:16384}")
+    private int offloadThreshold = 16384;
 
     @Override
     public Mono<Void> handle(WebSocketSession session) {
+        MultiValueMap<String, String> params = UriComponentsBuilder
+                .fromUri(session.getHandshakeInfo().getUri())
+                .build()
+                .getQueryParams();
+
+        UUID userId = parseUuid(params.getFirst("userId"));
+        if (userId == null) {
+            return session.close(CloseStatus.POLICY_VIOLATION.withReason("userId is required"));
+        }
+
+        ChatSession chatSession = new ChatSession(session.getId(), userId, outboundCapacity, slowConsumerPolicy,
+                () -> session.close(CloseStatus.POLICY_VIOLATION.withReason("slow consumer")).subscribe());
+        fanout.connect(chatSession);
+
+        // resume=<chatId>:<last seen messageID>; live frames of these chats are held until their gap is replayed
+        Map<UUID, UUID> resumeFrom = parseResume(params.getOrDefault("resume", List.of()));
+        resumeFrom.keySet().forEach(chatSession::beginReplay);
+
+        // every chat from the membership index, plus explicitly requested ones checked one by one
+        Flux<UUID> indexed = membershipService.getChatIds(userId)
+                .onErrorResume(err -> {
+                    log.warn("Failed to load chats of user {}: {}", userId, err.getMessage());
+                    return Flux.empty();
+                });
+        Flux<UUID> requested = Flux.fromIterable(params.getOrDefault("chatId", List.of()))
+                .mapNotNull(this::parseUuid)
+                .filterWhen(chatId -> isMember(chatId, userId));
+
+        Mono<Void> join = Flux.concat(indexed, requested)
+                .distinct()
+                .doOnNext(chatId -> fanout.join(chatId, chatSession))
+                .then();
+
+        // one chat after another, pulled by the socket writer, within one budget
+        Flux<byte[]> replay = Flux.defer(() -> {
+            AtomicInteger budget = new AtomicInteger(maxReplay);
+            return Flux.fromIterable(resumeFrom.entrySet())
+                    .concatMap(entry -> replayGap(chatSession, entry.getKey(), entry.getValue(), budget));
+        });
+
         Mono<Void> input = session.receive()
                 .map(WebSocketMessage::getPayloadAsText)
-                .flatMap(this::parseAndPrepareMessage)
+                .doOnNext(json -> metrics.inbound())
+                .concatMap(json -> readFrame(json, chatSession))
                 .flatMap(msg -> service.sendAMessage(msg).
-                        doOnNext(saved -> chatSink.emitNext(toJson(saved), Sinks.EmitFailureHandler.FAIL_FAST))
+                        flatMap(saved -> fanout.publish(saved.getChatId(), saved.getMessageID(), toJson(saved)).thenReturn(saved))
                         .onErrorResume(error -> {
+                            metrics.sendFailure();
                             log.error("Ошибка сохранения сообщения: {}", error.getMessage());
                             return Mono.empty();
                         })
                 ).then();
 
 
-        Mono<Void> output = session.send(chatSink.asFlux().map(session::textMessage));
+        // the replay is written straight to the socket; live frames queue behind it
+        // wrap() shares the encoded bytes instead of re-encoding a String per session
+        Mono<Void> output = session.send(Flux.concat(replay, chatSession.outbound())
+                .map(payload -> new WebSocketMessage(WebSocketMessage.Type.TEXT, session.bufferFactory().wrap(payload))));
 
 
-        return Mono.zip(input , output).then();
+        return join.then(Mono.zip(input , output).then())
+                .doFinally(signal -> {
+                    fanout.disconnect(chatSession);
+                    chatSession.close();
+                });
     }
 
-    private Mono<Message> parseAndPrepareMessage(String json) {
+    /**
+     * Replays what the client missed in {@code chatId} after {@code lastSeen}:
+     * from the recent-message ring when it holds the whole gap, otherwise from
+     * ScyllaDB, taking at most what is left of {@code budget}. The session is
+     * already in the room, so anything published meanwhile is held and
+     * released afterwards minus what the replay sent.
+     */
+    private Flux<byte[]> replayGap(ChatSession chatSession, UUID chatId, UUID lastSeen, AtomicInteger budget) {
+        if (!chatSession.getChats().contains(chatId)) {
+            chatSession.endReplay(chatId);
+            return Flux.empty();
+        }
+        AtomicReference<UUID> last = new AtomicReference<>(lastSeen);
+        return Flux.defer(() -> {
+                    // a page over REST is capped at 1000, keep one row to detect overflow
+                    int allowance = Math.min(budget.get(), 999);
+                    if (allowance <= 0) {
+                        return Flux.just(gapFrame(chatId, lastSeen));
+                    }
+                    Flux<Message> gap = recentMessages.after(chatId, lastSeen)
+                            .map(Flux::fromIterable)
+                            .orElseGet(() -> service.getMessagesAfter(chatId, lastSeen, allowance + 1));
+
+                    return gap.take(allowance + 1L)
+                            .index()
+                            .concatMap(indexed -> {
+                                Message message = indexed.getT2();
+                                if (indexed.getT1() == allowance) {
+                                    // more than fits: the client pages the rest over REST from `after`
+                                    return Mono.just(gapFrame(chatId, last.get()));
+                                }
+                                if (!chatSession.replay(chatId, message.getMessageID())) {
+                                    return Mono.empty();
+                                }
+                                budget.decrementAndGet();
+                                last.set(message.getMessageID());
+                                return Mono.just(toJson(message));
+                            });
+                })
+                .onErrorResume(err -> {
+                    log.warn("Failed to replay chat {} for user {}: {}", chatId, chatSession.getUserId(), err.getMessage());
+                    return Mono.just(gapFrame(chatId, last.get()));
+                })
+                .doFinally(signal -> chatSession.endReplay(chatId, gapFrame(chatId, last.get())));
+    }
+
+    private byte[] gapFrame(UUID chatId, UUID after) {
+        return encode(new GapFrame("gap", chatId, after));
+    }
+
+    private Map<UUID, UUID> parseResume(List<String> values) {
+        Map<UUID, UUID> resume = new LinkedHashMap<>();
+        for (String value : values) {
+            int split = value.indexOf(':');
+            if (split < 0) continue;
+            UUID chatId = parseUuid(value.substring(0, split));
+            UUID lastSeen = parseUuid(value.substring(split + 1));
+            if (chatId != null && lastSeen != null) {
+                resume.put(chatId, lastSeen);
+            }
+        }
+        return resume;
+    }
+
+    private Mono<Boolean> isMember(UUID chatId, UUID userId) {
+        return groupService.getGroupById(chatId)
+                .map(group -> userId.equals(group.admin())
+                        || (group.members() != null && group.members().contains(userId)))
+                .onErrorResume(err -> Mono.empty())
+                .switchIfEmpty(Mono.defer(() -> directRepository.findById(chatId)
+                        .map(direct -> userId.equals(direct.getSenderUserId())
+                                || userId.equals(direct.getReceiverUserId()))
+                ))
+                .onErrorResume(err -> {
+                    log.warn("Failed to check membership of {} in chat {}: {}", userId, chatId, err.getMessage());
+                    return Mono.just(false);
+                })
+                .defaultIfEmpty(false);
+    }
+
+    private UUID parseUuid(String value) {
+        if (value == null) return null;
         try {
-            Message msg = objectMapper.readValue(json, Message.class);
-            if (msg.getMessageID() == null) msg.setMessageID(UUID.randomUUID());
-            if (msg.getCreatedAt() == null) msg.setCreatedAt(Instant.now());
-            if (msg.getUpdatedAt() == null) msg.setUpdatedAt(Instant.now());
+            return UUID.fromString(value);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Small frames are parsed in place; a large one would hold the event
+     * loop for every other socket on it, so it is parsed on the blocking
+     * scheduler. concatMap upstream keeps the frames of one socket in order.
+     */
+    Mono<Message> readFrame(String json, ChatSession chatSession) {
+        if (json.length() < offloadThreshold) {
+            return parseFrame(json, chatSession);
+        }
+        return Mono.defer(() -> parseFrame(json, chatSession)).subscribeOn(blockingScheduler);
+    }
+
+    /**
+     * Ack frames ({@code {"type":"ack","chatId":..,"messageID":..,"status":"READ"}})
+     * only move the sender's watermark; every other frame is a chat message.
+     */
+    private Mono<Message> parseFrame(String json, ChatSession chatSession) {
+        try {
+            JsonNode node = objectMapper.readTree(json);
+            if ("ack".equals(node.path("type").asText())) {
+                acknowledge(node, chatSession);
+                return Mono.empty();
+            }
+            return parseAndPrepareMessage(node);
+        } catch (Exception e) {
+            // counted; a misbehaving client must not be able to flood the log
+            metrics.parseFailure();
+            if (log.isDebugEnabled()) {
+                log.debug("Ошибка парсинга JSON: {}", e.getMessage());
+            }
+            return Mono.empty(); // Игнорируем плохой JSON, не ломая сокет
+        }
+    }
+
+    private void acknowledge(JsonNode node, ChatSession chatSession) {
+        UUID chatId = parseUuid(node.path("chatId").asText(null));
+        UUID messageId = parseUuid(node.path("messageID").asText(null));
+        if (chatId == null || !chatSession.getChats().contains(chatId)) {
+            return;
+        }
+        ReceiptType type = "DELIVERED".equalsIgnoreCase(node.path("status").asText())
+                ? ReceiptType.DELIVERED
+                : ReceiptType.READ;
+        receipts.ack(chatId, chatSession.getUserId(), type, messageId);
+    }
+
+    Mono<Message> parseAndPrepareMessage(JsonNode json) {
+        try {
+            Message msg = objectMapper.treeToValue(json, Message.class);
+            // id and time are the server's: the id picks the storage bucket and orders history
+            Instant now = Instant.now();
+            msg.setMessageID(idGenerator.generateId());
+            msg.setCreatedAt(now);
+            msg.setUpdatedAt(now);
+            if (msg.getStatus() == null) msg.setStatus("SENT");
             return Mono.just(msg);
         } catch (Exception e) {
-            log.error("Ошибка парсинга JSON: {}", e.getMessage());
+            // counted; a misbehaving client must not be able to flood the log
+            metrics.parseFailure();
+            if (log.isDebugEnabled()) {
+                log.debug("Ошибка парсинга JSON: {}", e.getMessage());
+            }
             return Mono.empty(); // Игнорируем плохой JSON, не ломая сокет
         }
     }
 
-    private String toJson(Message message) {
+    byte[] toJson(Message message) {
+        return encode(message);
+    }
+
+    private byte[] encode(Object frame) {
         try {
-            return objectMapper.writeValueAsString(message);
+            return objectMapper.writeValueAsBytes(frame);
         } catch (Exception e) {
-            return "{}";
+            return EMPTY_JSON;
         }
     }
-}
\ No newline at end of file
+}
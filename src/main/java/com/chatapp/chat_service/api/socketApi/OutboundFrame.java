@@ -0,0 +1,11 @@
+package com.chatapp.chat_service.api.socketApi;
+
+import java.util.UUID;
+
+/**
+ * A frame queued for one session. {@code payload} is the UTF-8 JSON encoded
+ * once per message and shared, never copied, by every recipient session.
+ * {@code messageId} is null for frames that are not chat messages (receipts).
+ */
+public record OutboundFrame(UUID chatId, UUID messageId, byte[] payload) {
+}
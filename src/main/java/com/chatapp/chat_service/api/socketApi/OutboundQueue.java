@@ -0,0 +1,89 @@
+package com.chatapp.chat_service.api.socketApi;
+
+import java.util.AbstractQueue;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Bounded, thread-safe queue behind a session's outbound sink.
+ * Producers are the fan-out threads, the consumer is the socket writer.
+ * When full, {@link #offer} applies the session's {@link SlowConsumerPolicy}.
+ */
+final class OutboundQueue extends AbstractQueue<OutboundFrame> {
+
+    private final ArrayDeque<OutboundFrame> frames;
+    private final int capacity;
+    private final SlowConsumerPolicy policy;
+    private long evicted;
+
+    OutboundQueue(int capacity, SlowConsumerPolicy policy) {
+        this.frames = new ArrayDeque<>(Math.min(capacity, 64));
+        this.capacity = capacity;
+        this.policy = policy;
+    }
+
+    @Override
+    public synchronized boolean offer(OutboundFrame frame) {
+        if (frames.size() < capacity) {
+            frames.addLast(frame);
+            return true;
+        }
+        switch (policy) {
+            case DISCONNECT -> {
+                return false;
+            }
+            case COALESCE -> {
+                if (!removeOldestOf(frame.chatId())) {
+                    frames.pollFirst();
+                }
+            }
+            case DROP_OLDEST -> frames.pollFirst();
+        }
+        evicted++;
+        frames.addLast(frame);
+        return true;
+    }
+
+    @Override
+    public synchronized OutboundFrame poll() {
+        return frames.pollFirst();
+    }
+
+    @Override
+    public synchronized OutboundFrame peek() {
+        return frames.peekFirst();
+    }
+
+    @Override
+    public synchronized int size() {
+        return frames.size();
+    }
+
+    @Override
+    public synchronized void clear() {
+        frames.clear();
+    }
+
+    @Override
+    public synchronized Iterator<OutboundFrame> iterator() {
+        return List.copyOf(frames).iterator();
+    }
+
+    /** Frames dropped by the overflow policy to make room. */
+    synchronized long evicted() {
+        return evicted;
+    }
+
+    private boolean removeOldestOf(UUID chatId) {
+        Iterator<OutboundFrame> it = frames.iterator();
+        while (it.hasNext()) {
+            if (it.next().chatId().equals(chatId)) {
+                it.remove();
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,54 @@
+package com.chatapp.chat_service.api.socketApi;
+
+import com.chatapp.chat_service.domain.model.ReadState;
+import com.chatapp.chat_service.domain.service.ReadReceiptCoalescer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+
+import java.util.UUID;
+
+/**
+ * Fans flushed receipt watermarks out to the chat's room as
+ * {@code {"type":"receipt",...}} frames, one per (chat, user) per flush.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ReceiptRelay {
+
+    public record ReceiptFrame(String type, UUID chatId, UUID userId, UUID deliveredUpTo, UUID readUpTo) {}
+
+    private final ReadReceiptCoalescer receipts;
+    private final ChatFanout fanout;
+    private final ObjectMapper objectMapper;
+    private Disposable subscription;
+
+    @PostConstruct
+    public void start() {
+        subscription = receipts.flushed()
+                .flatMap(state -> fanout.publish(state.getChatId(), encode(state)))
+                .subscribe();
+    }
+
+    private byte[] encode(ReadState state) {
+        try {
+            return objectMapper.writeValueAsBytes(new ReceiptFrame("receipt", state.getChatId(), state.getUserId(),
+                    state.getDeliveredUpTo(), state.getReadUpTo()));
+        } catch (Exception e) {
+            log.warn("Failed to encode receipt for chat {}: {}", state.getChatId(), e.getMessage());
+            return new byte[]{'{', '}'};
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (subscription != null) {
+            subscription.dispose();
+        }
+    }
+}
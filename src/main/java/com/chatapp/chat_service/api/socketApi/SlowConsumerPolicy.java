@@ -0,0 +1,16 @@
+package com.chatapp.chat_service.api.socketApi;
+
+/**
+ * What a session does when its outbound queue is full.
+ */
+public enum SlowConsumerPolicy {
+
+    /** Drop the oldest queued frame to make room for the new one. */
+    DROP_OLDEST,
+
+    /** Close the session, the client is expected to reconnect and catch up. */
+    DISCONNECT,
+
+    /** Drop the oldest queued frame of the same chat, so every chat keeps its latest frames. */
+    COALESCE
+}
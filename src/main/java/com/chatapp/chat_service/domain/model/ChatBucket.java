@@ -0,0 +1,30 @@
+package com.chatapp.chat_service.domain.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.springframework.data.cassandra.core.cql.Ordering;
+import org.springframework.data.cassandra.core.cql.PrimaryKeyType;
+import org.springframework.data.cassandra.core.mapping.PrimaryKeyColumn;
+import org.springframework.data.cassandra.core.mapping.Table;
+
+import java.util.UUID;
+
+/**
+ * Bucket index: one row per non-empty day bucket of a chat, newest first,
+ * so history reads jump straight to the partitions that hold messages
+ * instead of probing every day in between.
+ */
+@AllArgsConstructor
+@Getter @Setter
+@NoArgsConstructor
+@Table("message_buckets")
+public class ChatBucket {
+
+    @PrimaryKeyColumn(type = PrimaryKeyType.PARTITIONED , ordinal = 0)
+    private UUID chatId;
+
+    @PrimaryKeyColumn(type = PrimaryKeyType.CLUSTERED , ordinal = 1 , ordering = Ordering.DESCENDING)
+    private Integer bucket;
+}
@@ -7,6 +7,8 @@ import lombok.Setter;
 import org.springframework.data.cassandra.core.mapping.PrimaryKey;
 import org.springframework.data.cassandra.core.mapping.Table;
 
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.UUID;
 
@@ -23,4 +25,24 @@ public class Direct {
 
     private UUID receiverUserId;
 
+    private static final byte[] NAMESPACE = "direct:".getBytes(StandardCharsets.US_ASCII);
+
+    /**
+     * Chat id of the direct chat between two users: a name-based UUID over
+     * the ordered pair, so both sides derive the same id without a lookup.
+     */
+    public static UUID chatIdOf(UUID userA, UUID userB) {
+        List<UUID> pair = participants(userA, userB);
+        ByteBuffer name = ByteBuffer.allocate(NAMESPACE.length + 32)
+                .put(NAMESPACE)
+                .putLong(pair.get(0).getMostSignificantBits())
+                .putLong(pair.get(0).getLeastSignificantBits())
+                .putLong(pair.get(1).getMostSignificantBits())
+                .putLong(pair.get(1).getLeastSignificantBits());
+        return UUID.nameUUIDFromBytes(name.array());
+    }
+
+    public static List<UUID> participants(UUID userA, UUID userB) {
+        return userA.compareTo(userB) <= 0 ? List.of(userA, userB) : List.of(userB, userA);
+    }
 }
@@ -4,14 +4,14 @@ import lombok.*;
 import org.springframework.data.cassandra.core.mapping.PrimaryKey;
 import org.springframework.data.cassandra.core.mapping.Table;
 import java.time.Instant;
-import java.util.List;
+import java.util.Set;
 import java.util.UUID;
 
 @AllArgsConstructor
 @Getter @Setter
 @EqualsAndHashCode
 @Builder
-@Table("Group")
+@Table("groups")
 public class Group {
 
     @PrimaryKey
@@ -23,7 +23,8 @@ public class Group {
 
     private UUID admin;
 
-    private List<UUID> members;
+    // a set, so adding a member is idempotent and concurrent adds simply merge
+    private Set<UUID> members;
 
     private Instant created_at;
 
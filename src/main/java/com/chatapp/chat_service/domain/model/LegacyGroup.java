@@ -0,0 +1,42 @@
+package com.chatapp.chat_service.domain.model;
+
+import lombok.*;
+import org.springframework.data.cassandra.core.mapping.PrimaryKey;
+import org.springframework.data.cassandra.core.mapping.Table;
+
+import java.time.Instant;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Row of the old {@code "Group"} table, whose members are a list. Only read by
+ * {@link com.chatapp.chat_service.domain.service.GroupMembersMigration}.
+ */
+@AllArgsConstructor
+@Getter @Setter
+@NoArgsConstructor
+@Table("Group")
+public class LegacyGroup {
+
+    @PrimaryKey
+    private UUID groupID;
+
+    private String title;
+
+    private String description;
+
+    private UUID admin;
+
+    private List<UUID> members;
+
+    private Instant created_at;
+
+    private Instant updated_at;
+
+    /** The row with its members as a set; duplicates left by concurrent appends collapse. */
+    public Group toGroup() {
+        return new Group(groupID, title, description, admin,
+                members == null ? null : new LinkedHashSet<>(members), created_at, updated_at);
+    }
+}
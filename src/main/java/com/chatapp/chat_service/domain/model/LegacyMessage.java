@@ -0,0 +1,55 @@
+package com.chatapp.chat_service.domain.model;
+
+import com.chatapp.chat_service.infrastructure.config.TimeOrderedIdGenerator;
+import lombok.*;
+import org.springframework.data.cassandra.core.cql.Ordering;
+import org.springframework.data.cassandra.core.cql.PrimaryKeyType;
+import org.springframework.data.cassandra.core.mapping.PrimaryKeyColumn;
+import org.springframework.data.cassandra.core.mapping.Table;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Row of the old, unbucketed {@code messages} table. Only read by
+ * {@link com.chatapp.chat_service.domain.service.MessageBucketMigration}.
+ */
+@AllArgsConstructor
+@Getter @Setter
+@NoArgsConstructor
+@Table("messages")
+public class LegacyMessage {
+
+    @PrimaryKeyColumn(type = PrimaryKeyType.PARTITIONED , ordinal = 0)
+    private UUID chatId;
+
+    @PrimaryKeyColumn(type = PrimaryKeyType.CLUSTERED ,ordinal = 1 , ordering = Ordering.DESCENDING)
+    private UUID messageID;
+
+    private UUID senderID;
+
+    private String content;
+
+    private String status;
+
+    private Instant createdAt;
+
+    private Instant updatedAt;
+
+    /**
+     * The row in the bucketed layout. Ids that are not UUIDv7 (random or
+     * client-made ones) are re-keyed to a v7 id at createdAt, so the bucket
+     * follows createdAt and the row can still be read by id and used as a
+     * cursor. Null when the row carries no timestamp to place it by.
+     */
+    public Message toMessage() {
+        Instant at = createdAt != null ? createdAt : updatedAt;
+        if (at == null) {
+            return null;
+        }
+        UUID id = MessageBucket.isTimeOrdered(messageID)
+                ? messageID
+                : TimeOrderedIdGenerator.derive(at.toEpochMilli(), messageID);
+        return new Message(chatId, MessageBucket.of(id), id, senderID, content, status, createdAt, updatedAt);
+    }
+}
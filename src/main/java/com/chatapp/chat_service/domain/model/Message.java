@@ -1,6 +1,6 @@
 package com.chatapp.chat_service.domain.model;
 
-import com.datastax.oss.driver.internal.core.type.codec.TimeUuidCodec;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.*;
 import org.springframework.data.cassandra.core.cql.Ordering;
 import org.springframework.data.cassandra.core.cql.PrimaryKeyType;
@@ -15,13 +15,18 @@ import java.util.UUID;
 @Builder
 @Getter @Setter
 @NoArgsConstructor
-@Table("messages")
+@Table("messages_by_bucket")
 public class Message {
 
-    @PrimaryKeyColumn(type = PrimaryKeyType.PARTITIONED)
+    @PrimaryKeyColumn(type = PrimaryKeyType.PARTITIONED , ordinal = 0)
     private UUID chatId;
 
-    @PrimaryKeyColumn(type = PrimaryKeyType.CLUSTERED ,ordinal = 0 , ordering = Ordering.DESCENDING)
+    // day bucket, see MessageBucket; assigned by the server on write
+    @JsonIgnore
+    @PrimaryKeyColumn(type = PrimaryKeyType.PARTITIONED , ordinal = 1)
+    private Integer bucket;
+
+    @PrimaryKeyColumn(type = PrimaryKeyType.CLUSTERED ,ordinal = 2 , ordering = Ordering.DESCENDING)
     private UUID messageID;
 
     private UUID senderID;
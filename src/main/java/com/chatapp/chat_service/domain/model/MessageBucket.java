@@ -0,0 +1,52 @@
+package com.chatapp.chat_service.domain.model;
+
+import com.chatapp.chat_service.infrastructure.config.TimeOrderedIdGenerator;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time bucket of the messages partition key: the UTC epoch day of a message.
+ * It is taken from the UUIDv7 messageID, so a cursor id alone tells which
+ * partition to read. Every stored message has a v7 id (the server assigns
+ * them, the migration re-keys older rows), so any other id is rejected
+ * rather than guessed into a bucket it was never written to.
+ */
+public final class MessageBucket {
+
+    private static final long MILLIS_PER_BUCKET = TimeUnit.DAYS.toMillis(1);
+
+    private MessageBucket() {
+    }
+
+    public static int of(Message message) {
+        return of(message.getMessageID());
+    }
+
+    /** @throws IllegalArgumentException if {@code messageID} is not a UUIDv7 */
+    public static int of(UUID messageID) {
+        long millis = messageID != null ? TimeOrderedIdGenerator.timestampOf(messageID) : -1;
+        if (millis < 0) {
+            throw new IllegalArgumentException("Not a time-ordered message id: " + messageID);
+        }
+        return ofMillis(millis);
+    }
+
+    public static int of(Instant instant) {
+        return ofMillis(instant.toEpochMilli());
+    }
+
+    public static boolean isTimeOrdered(UUID messageID) {
+        return messageID != null && TimeOrderedIdGenerator.timestampOf(messageID) >= 0;
+    }
+
+    public static int current(Clock clock) {
+        return ofMillis(clock.millis());
+    }
+
+    private static int ofMillis(long millis) {
+        return (int) Math.floorDiv(millis, MILLIS_PER_BUCKET);
+    }
+}
@@ -0,0 +1,35 @@
+package com.chatapp.chat_service.domain.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.springframework.data.cassandra.core.cql.PrimaryKeyType;
+import org.springframework.data.cassandra.core.mapping.PrimaryKeyColumn;
+import org.springframework.data.cassandra.core.mapping.Table;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Per (chat, user) receipt watermarks: every message up to and including
+ * {@code deliveredUpTo} / {@code readUpTo} counts as delivered / read.
+ */
+@AllArgsConstructor
+@Getter @Setter
+@NoArgsConstructor
+@Table("chat_read_state")
+public class ReadState {
+
+    @PrimaryKeyColumn(type = PrimaryKeyType.PARTITIONED , ordinal = 0)
+    private UUID chatId;
+
+    @PrimaryKeyColumn(type = PrimaryKeyType.CLUSTERED , ordinal = 1)
+    private UUID userId;
+
+    private UUID deliveredUpTo;
+
+    private UUID readUpTo;
+
+    private Instant updatedAt;
+}
@@ -0,0 +1,6 @@
+package com.chatapp.chat_service.domain.model;
+
+public enum ReceiptType {
+    DELIVERED,
+    READ
+}
@@ -0,0 +1,29 @@
+package com.chatapp.chat_service.domain.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.springframework.data.cassandra.core.cql.PrimaryKeyType;
+import org.springframework.data.cassandra.core.mapping.PrimaryKeyColumn;
+import org.springframework.data.cassandra.core.mapping.Table;
+
+import java.util.UUID;
+
+/**
+ * Durable checkpoint of a user's unread counters; the live values are in Redis.
+ */
+@AllArgsConstructor
+@Getter @Setter
+@NoArgsConstructor
+@Table("unread_counts")
+public class UnreadCount {
+
+    @PrimaryKeyColumn(type = PrimaryKeyType.PARTITIONED , ordinal = 0)
+    private UUID userId;
+
+    @PrimaryKeyColumn(type = PrimaryKeyType.CLUSTERED , ordinal = 1)
+    private UUID chatId;
+
+    private long count;
+}
@@ -0,0 +1,30 @@
+package com.chatapp.chat_service.domain.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.springframework.data.cassandra.core.cql.PrimaryKeyType;
+import org.springframework.data.cassandra.core.mapping.PrimaryKeyColumn;
+import org.springframework.data.cassandra.core.mapping.Table;
+
+import java.util.UUID;
+
+/**
+ * Reverse membership index: one partition per user listing the chats they
+ * belong to, so "which chats is this user in" is a single-partition read.
+ */
+@AllArgsConstructor
+@Getter @Setter
+@NoArgsConstructor
+@Table("user_chats")
+public class UserChat {
+
+    @PrimaryKeyColumn(type = PrimaryKeyType.PARTITIONED , ordinal = 0)
+    private UUID userId;
+
+    @PrimaryKeyColumn(type = PrimaryKeyType.CLUSTERED , ordinal = 1)
+    private UUID chatId;
+
+    private ChatType chatType;
+}
@@ -0,0 +1,23 @@
+package com.chatapp.chat_service.domain.repository;
+
+import com.chatapp.chat_service.domain.model.ChatBucket;
+import org.springframework.data.cassandra.core.mapping.MapId;
+import org.springframework.data.cassandra.repository.ReactiveCassandraRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+
+import java.util.UUID;
+
+/**
+ * Non-empty message buckets of a chat, see {@link ChatBucket}.
+ */
+@Repository
+public interface ChatBucketRepository extends ReactiveCassandraRepository<ChatBucket, MapId> {
+
+    // newest first (clustering order)
+    Flux<ChatBucket> findByChatId(UUID chatId);
+
+    Flux<ChatBucket> findByChatIdAndBucketLessThanEqual(UUID chatId, int bucket);
+
+    Flux<ChatBucket> findByChatIdAndBucketGreaterThanEqualOrderByBucketAsc(UUID chatId, int bucket);
+}
@@ -0,0 +1,11 @@
+package com.chatapp.chat_service.domain.repository;
+
+import com.chatapp.chat_service.domain.model.LegacyGroup;
+import org.springframework.data.cassandra.repository.ReactiveCassandraRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.UUID;
+
+@Repository
+public interface LegacyGroupRepository extends ReactiveCassandraRepository<LegacyGroup, UUID> {
+}
@@ -0,0 +1,10 @@
+package com.chatapp.chat_service.domain.repository;
+
+import com.chatapp.chat_service.domain.model.LegacyMessage;
+import org.springframework.data.cassandra.core.mapping.MapId;
+import org.springframework.data.cassandra.repository.ReactiveCassandraRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface LegacyMessageRepository extends ReactiveCassandraRepository<LegacyMessage, MapId> {
+}
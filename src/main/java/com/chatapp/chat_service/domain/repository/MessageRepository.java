@@ -1,18 +1,29 @@
 package com.chatapp.chat_service.domain.repository;
 
 import com.chatapp.chat_service.domain.model.Message;
+import org.springframework.data.cassandra.core.mapping.MapId;
 import org.springframework.data.cassandra.repository.ReactiveCassandraRepository;
 import org.springframework.data.domain.Limit;
-import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Repository;
 import reactor.core.publisher.Flux;
 
 import java.util.UUID;
 
+/**
+ * Messages are partitioned by (chatId, bucket), see {@link com.chatapp.chat_service.domain.model.MessageBucket}.
+ * Every query here reads exactly one partition; walking across buckets is done by the service.
+ */
 @Repository
-public interface MessageRepository extends ReactiveCassandraRepository<Message , UUID> {
+public interface MessageRepository extends ReactiveCassandraRepository<Message , MapId> {
 
-    Flux<Message> findByChatId(UUID chatId);
+    Flux<Message> findByChatIdAndBucket(UUID chatId, int bucket);
 
-    Flux<Message> findByChatId(UUID chatId, Pageable pageable);
-}
\ No newline at end of file
+    // keyset pages over the messageID clustering key (DESC)
+    Flux<Message> findByChatIdAndBucket(UUID chatId, int bucket, Limit limit);
+
+    Flux<Message> findByChatIdAndBucketAndMessageIDLessThan(UUID chatId, int bucket, UUID messageID, Limit limit);
+
+    Flux<Message> findByChatIdAndBucketOrderByMessageIDAsc(UUID chatId, int bucket, Limit limit);
+
+    Flux<Message> findByChatIdAndBucketAndMessageIDGreaterThanOrderByMessageIDAsc(UUID chatId, int bucket, UUID messageID, Limit limit);
+}
@@ -0,0 +1,18 @@
+package com.chatapp.chat_service.domain.repository;
+
+import com.chatapp.chat_service.domain.model.ReadState;
+import org.springframework.data.cassandra.core.mapping.MapId;
+import org.springframework.data.cassandra.repository.ReactiveCassandraRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.UUID;
+
+@Repository
+public interface ReadStateRepository extends ReactiveCassandraRepository<ReadState, MapId> {
+
+    Flux<ReadState> findByChatId(UUID chatId);
+
+    Mono<ReadState> findByChatIdAndUserId(UUID chatId, UUID userId);
+}
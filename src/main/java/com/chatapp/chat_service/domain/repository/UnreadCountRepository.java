@@ -0,0 +1,15 @@
+package com.chatapp.chat_service.domain.repository;
+
+import com.chatapp.chat_service.domain.model.UnreadCount;
+import org.springframework.data.cassandra.core.mapping.MapId;
+import org.springframework.data.cassandra.repository.ReactiveCassandraRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+
+import java.util.UUID;
+
+@Repository
+public interface UnreadCountRepository extends ReactiveCassandraRepository<UnreadCount, MapId> {
+
+    Flux<UnreadCount> findByUserId(UUID userId);
+}
@@ -0,0 +1,94 @@
+package com.chatapp.chat_service.domain.service;
+
+import com.chatapp.chat_service.api.dto.DirectDto;
+import com.chatapp.chat_service.domain.exception.ServiceExceptions;
+import com.chatapp.chat_service.domain.model.ChatType;
+import com.chatapp.chat_service.domain.model.Direct;
+import com.chatapp.chat_service.domain.repository.DirectRepository;
+import com.chatapp.chat_service.infrastructure.persistence.jpa.DirectService;
+import com.chatapp.chat_service.infrastructure.persistence.jpa.MembershipService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.cassandra.core.InsertOptions;
+import org.springframework.data.cassandra.core.ReactiveCassandraOperations;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.UUID;
+
+/**
+ * Direct chats are keyed by {@link Direct#chatIdOf}, so finding the chat of
+ * a pair never needs a scan. Creation is an {@code IF NOT EXISTS} insert:
+ * concurrent first messages race on the same key and all end up with the
+ * row that won. A Redis marker lets repeat opens skip the LWT round trips.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class DirectServiceImpl implements DirectService {
+
+    private static final Duration MARKER_TTL = Duration.ofHours(24);
+    private static final InsertOptions IF_NOT_EXISTS = InsertOptions.builder().withIfNotExists().build();
+
+    private final DirectRepository repository;
+    private final ReactiveCassandraOperations operations;
+    private final MembershipService membershipService;
+    private final ReactiveStringRedisTemplate redisTemplate;
+
+    @Override
+    public Mono<DirectDto> getOrCreateDirect(UUID userId, UUID peerId) {
+        if (userId == null || peerId == null || userId.equals(peerId)) {
+            return Mono.error(new IllegalArgumentException("Direct chat needs two different users"));
+        }
+        UUID chatId = Direct.chatIdOf(userId, peerId);
+        DirectDto dto = new DirectDto(chatId, Direct.participants(userId, peerId));
+        String marker = markerKey(chatId);
+
+        return redisTemplate.hasKey(marker)
+                .onErrorResume(err -> {
+                    log.warn("Failed to read direct chat marker {}: {}", chatId, err.getMessage());
+                    return Mono.just(false);
+                })
+                .flatMap(known -> known ? Mono.just(dto) : create(chatId, userId, peerId, marker).thenReturn(dto))
+                .timeout(Duration.ofSeconds(5))
+                .onErrorResume(err -> !(err instanceof IllegalArgumentException), err -> {
+                    log.error("Failed to open direct chat {}", chatId, err);
+                    return Mono.error(new RuntimeException("Failed to open direct chat"));
+                });
+    }
+
+    @Override
+    public Mono<DirectDto> getDirectById(UUID chatId) {
+        return repository.findById(chatId)
+                .map(direct -> new DirectDto(direct.getChatId(),
+                        Direct.participants(direct.getSenderUserId(), direct.getReceiverUserId())))
+                .switchIfEmpty(Mono.error(new ServiceExceptions("Direct chat not found: " + chatId)))
+                .timeout(Duration.ofSeconds(3))
+                .onErrorResume(err -> !(err instanceof ServiceExceptions), err ->
+                        Mono.error(new RuntimeException("Failed to find direct chat by id: " + chatId))
+                );
+    }
+
+    // the membership write is idempotent, so it is repeated whenever the marker is gone
+    private Mono<Void> create(UUID chatId, UUID userId, UUID peerId, String marker) {
+        return operations.insert(new Direct(chatId, userId, peerId), IF_NOT_EXISTS)
+                .doOnNext(result -> {
+                    if (!result.wasApplied()) {
+                        log.debug("Direct chat {} already existed", chatId);
+                    }
+                })
+                .then(membershipService.addMembers(chatId, ChatType.DIRECT, Direct.participants(userId, peerId)))
+                .then(redisTemplate.opsForValue().set(marker, "1", MARKER_TTL)
+                        .onErrorResume(err -> {
+                            log.warn("Failed to cache direct chat marker {}: {}", chatId, err.getMessage());
+                            return Mono.just(false);
+                        }))
+                .then();
+    }
+
+    private static String markerKey(UUID chatId) {
+        return "direct:" + chatId;
+    }
+}
@@ -0,0 +1,56 @@
+package com.chatapp.chat_service.domain.service;
+
+import com.chatapp.chat_service.domain.model.LegacyGroup;
+import com.chatapp.chat_service.domain.repository.GroupRepository;
+import com.chatapp.chat_service.domain.repository.LegacyGroupRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * One-off copy of the old {@code "Group"} table (members as a list) into
+ * {@code groups} (members as a set), see {@link com.chatapp.chat_service.domain.model.LegacyGroup#toGroup()}.
+ * Enabled with {@code chat.migration.groups-to-member-sets=true}; rows are streamed
+ * with driver paging, so memory stays flat. Writes are idempotent upserts,
+ * so an interrupted run can simply be started again.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "chat.migration.groups-to-member-sets", havingValue = "true")
+public class GroupMembersMigration implements ApplicationRunner {
+
+    private final LegacyGroupRepository legacyRepository;
+    private final GroupRepository repository;
+
+    @Value("${chat.migration.concurrency:32}")
+    private int concurrency = 32;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        migrate().block();
+    }
+
+    public Mono<Long> migrate() {
+        AtomicLong copied = new AtomicLong();
+        return legacyRepository.findAll()
+                .map(LegacyGroup::toGroup)
+                .flatMap(repository::save, concurrency)
+                .doOnNext(group -> {
+                    long done = copied.incrementAndGet();
+                    if (done % 10_000 == 0) {
+                        log.info("Migrated {} groups", done);
+                    }
+                })
+                .count()
+                .doOnSuccess(total -> log.info("Group members migration finished, {} groups copied", total))
+                .doOnError(err -> log.error("Group members migration failed after {} groups", copied.get(), err));
+    }
+}
@@ -2,39 +2,87 @@ package com.chatapp.chat_service.domain.service;
 
 import com.chatapp.chat_service.api.dto.CreateGroupDto;
 import com.chatapp.chat_service.api.dto.GroupDto;
+import com.chatapp.chat_service.api.dto.GroupPageDto;
 import com.chatapp.chat_service.domain.exception.ServiceExceptions;
+import com.chatapp.chat_service.domain.model.ChatType;
 import com.chatapp.chat_service.domain.model.Group;
 import com.chatapp.chat_service.domain.repository.GroupRepository;
 import com.chatapp.chat_service.infrastructure.mapper.GroupMapper;
+import com.chatapp.chat_service.infrastructure.persistence.db.ScyllaMetrics;
 import com.chatapp.chat_service.infrastructure.persistence.jpa.GroupService;
+import com.chatapp.chat_service.infrastructure.persistence.jpa.MembershipService;
+import com.chatapp.chat_service.infrastructure.persistence.redis.GroupNearCache;
 import com.chatapp.chat_service.infrastructure.persistence.redis.GroupRedisService;
+import com.datastax.oss.driver.api.core.cql.SimpleStatement;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.cassandra.core.ReactiveCassandraOperations;
+import org.springframework.data.cassandra.core.query.CassandraPageRequest;
+import org.springframework.data.cassandra.core.query.Query;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.nio.ByteBuffer;
 import java.time.Duration;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static com.chatapp.chat_service.infrastructure.persistence.db.ScyllaMetrics.Operation.*;
 
 @Slf4j
 @Service
 @AllArgsConstructor
 public class GroupServiceImpl implements GroupService {
 
+    private static final int MAX_BULK_IDS = 500;
+    private static final int BULK_READ_CONCURRENCY = 16;
+    private static final int MAX_MEMBER_CHANGE = 1000;
+    private static final int MAX_PAGE_SIZE = 200;
+    private static final int EXPORT_SPLITS = 64;
+    private static final int EXPORT_CONCURRENCY = 8;
+    private static final int EXPORT_FETCH_SIZE = 500;
+
+    private static final String SELECT_TOKEN_RANGE =
+            "SELECT * FROM groups WHERE token(groupid) > ? AND token(groupid) <= ?";
+
+    // set union/difference are applied by the replica: concurrent edits merge and re-adding an id is a no-op
+    private static final String APPEND_MEMBERS = "UPDATE groups SET members = members + ?, updated_at = ? WHERE groupid = ?";
+    private static final String REMOVE_MEMBERS = "UPDATE groups SET members = members - ?, updated_at = ? WHERE groupid = ?";
+    // key lookup for one small column, so an existence check never drags the member set along
+    private static final String SELECT_ADMIN = "SELECT admin FROM groups WHERE groupid = ?";
+
+    record TokenRange(long start, long end) {}
+
     private final GroupRepository repository;
+    private final ReactiveCassandraOperations operations;
     private final GroupRedisService redisService;
+    private final GroupNearCache nearCache;
+    private final MembershipService membershipService;
     private final GroupMapper mapper;
+    private final ScyllaMetrics scyllaMetrics;
+    private final ConcurrentHashMap<UUID, Mono<Group>> inFlight = new ConcurrentHashMap<>();
 
     @Override
     public Mono<GroupDto> createGroup(CreateGroupDto dto) {
         return Mono.just(dto)
                 .map(mapper::toDomain)
-                .flatMap(repository::save)
+                .flatMap(group -> scyllaMetrics.time(GROUP_WRITE, repository.save(group)))
+                .flatMap(group -> membershipService.addMembers(group.getGroupID(), ChatType.GROUP, participants(group))
+                        .thenReturn(group))
                 .flatMap(redisService::saveGroup)
+                .flatMap(this::writeThroughNearCache)
                 .map(mapper::toDto)
                 .timeout(Duration.ofSeconds(5))
                 .onErrorResume(TimeoutException.class , ex ->
@@ -44,36 +92,158 @@ public class GroupServiceImpl implements GroupService {
 
     @Override
     public Mono<GroupDto> getGroupById(UUID groupID) {
-        return redisService.getGroupById(String.valueOf(groupID))
-                .switchIfEmpty(Mono.defer( () ->
-                        repository.findById(groupID)
-                                .flatMap(redisService::saveGroup)
-                                .onErrorResume(err ->
-                                        Mono.error(new RuntimeException("Failed to save group to redis and find data in repo"))
-                                )
-
-                )).map(mapper::toDto)
+        Group near = nearCache.get(groupID);
+        if (near != null) {
+            return Mono.just(mapper.toDto(near));
+        }
+        return redisService.getGroupWithRefreshHint(String.valueOf(groupID))
+                .doOnNext(hit -> {
+                    if (hit.refreshEarly()) {
+                        // the near cache gets the reloaded copy too, not only Redis
+                        loadOnce(groupID).subscribe(
+                                group -> {
+                                    nearCache.put(group);
+                                    log.debug("Group {} refreshed ahead of expiry", groupID);
+                                },
+                                err -> log.warn("Early refresh of group {} failed: {}", groupID, err.getMessage()));
+                    }
+                })
+                .map(GroupRedisService.CachedGroup::group)
+                .switchIfEmpty(Mono.defer(() -> loadOnce(groupID)))
+                .doOnNext(nearCache::put)
+                .map(mapper::toDto)
                 .timeout(Duration.ofSeconds(3))
                 .onErrorMap(msg ->
                         new RuntimeException("Failed to find group by id: " + groupID)
                 );
     }
 
+    /**
+     * Near cache, then one MGET for the rest, then bounded concurrent reads
+     * from ScyllaDB for what is still missing (the driver routes each
+     * single-key read to a replica of its token), then one pipelined backfill.
+     */
     @Override
-    public Flux<GroupDto> getAllGroup(int page , int size) {
-        return repository.findAllBy(PageRequest.of(page , size))
+    public Flux<GroupDto> getGroupsByIds(Collection<UUID> groupIDs) {
+        Set<UUID> ids = new LinkedHashSet<>(groupIDs);
+        if (ids.size() > MAX_BULK_IDS) {
+            return Flux.error(new IllegalArgumentException("At most " + MAX_BULK_IDS + " groups per request"));
+        }
+
+        List<Group> nearHits = new ArrayList<>();
+        List<UUID> remaining = new ArrayList<>();
+        for (UUID id : ids) {
+            Group near = nearCache.get(id);
+            if (near != null) {
+                nearHits.add(near);
+            } else {
+                remaining.add(id);
+            }
+        }
+
+        Flux<Group> fromStores = redisService.getGroupsByIds(remaining)
+                .collectList()
+                .flatMapMany(cached -> {
+                    Set<UUID> misses = new LinkedHashSet<>(remaining);
+                    cached.forEach(group -> misses.remove(group.getGroupID()));
+
+                    Flux<Group> loaded = Flux.fromIterable(misses)
+                            .flatMap(id -> scyllaMetrics.time(GROUP_READ, repository.findById(id)), BULK_READ_CONCURRENCY)
+                            .collectList()
+                            .flatMapMany(redisService::saveAll);
+
+                    return Flux.concat(Flux.fromIterable(cached), loaded);
+                })
+                .doOnNext(nearCache::put);
+
+        return Flux.concat(Flux.fromIterable(nearHits), fromStores)
                 .map(mapper::toDto)
+                .timeout(Duration.ofSeconds(5))
+                .onErrorResume(err ->
+                        Flux.error(new RuntimeException("Failed to fetch groups by ids"))
+                );
+    }
+
+    /**
+     * Keyset-style paging on the driver's paging state: each page resumes
+     * where the previous one stopped instead of skipping {@code page * size} rows.
+     */
+    @Override
+    public Mono<GroupPageDto> getGroupPage(String cursor, int size) {
+        if (size < 1 || size > MAX_PAGE_SIZE) {
+            return Mono.error(new IllegalArgumentException("Size 1 .. " + MAX_PAGE_SIZE));
+        }
+        CassandraPageRequest pageRequest;
+        try {
+            pageRequest = cursor == null || cursor.isBlank()
+                    ? CassandraPageRequest.first(size)
+                    : CassandraPageRequest.of(PageRequest.of(0, size), ByteBuffer.wrap(Base64.getUrlDecoder().decode(cursor)));
+        } catch (IllegalArgumentException e) {
+            return Mono.error(new IllegalArgumentException("Malformed cursor"));
+        }
+
+        return scyllaMetrics.time(GROUP_PAGE, operations.slice(Query.empty().pageRequest(pageRequest), Group.class))
+                .map(slice -> {
+                    String next = null;
+                    if (slice.hasNext() && slice.nextPageable() instanceof CassandraPageRequest nextPage
+                            && nextPage.getPagingState() != null) {
+                        ByteBuffer state = nextPage.getPagingState().duplicate();
+                        byte[] bytes = new byte[state.remaining()];
+                        state.get(bytes);
+                        next = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+                    }
+                    return new GroupPageDto(slice.getContent().stream().map(mapper::toDto).toList(), next);
+                })
                 .timeout(Duration.ofSeconds(3))
-                .onErrorResume(msg ->
-                        Flux.error(new RuntimeException("Failed to fetch all groups"))
+                .onErrorResume(err -> !(err instanceof IllegalArgumentException), err ->
+                        Mono.error(new RuntimeException("Failed to fetch groups page"))
                 );
     }
 
+    /**
+     * Full scan for offline consumers: the token ring is cut into
+     * {@link #EXPORT_SPLITS} ranges read with bounded parallelism, each
+     * range paged by the driver, so memory stays flat regardless of table size.
+     */
+    @Override
+    public Flux<GroupDto> exportAll() {
+        return Flux.fromIterable(tokenRanges(EXPORT_SPLITS))
+                .flatMap(range -> operations.select(
+                        SimpleStatement.newInstance(SELECT_TOKEN_RANGE, range.start(), range.end())
+                                .setPageSize(EXPORT_FETCH_SIZE),
+                        Group.class), EXPORT_CONCURRENCY)
+                .map(mapper::toDto)
+                .onErrorResume(err -> {
+                    log.error("Group export failed", err);
+                    return Flux.error(new RuntimeException("Failed to export groups"));
+                });
+    }
+
+    // (start, end] ranges covering the whole Murmur3 ring; Long.MIN_VALUE is never a real token
+    static List<TokenRange> tokenRanges(int splits) {
+        List<TokenRange> ranges = new ArrayList<>(splits);
+        long step = Long.MAX_VALUE / splits * 2;
+        long start = Long.MIN_VALUE;
+        for (int i = 0; i < splits; i++) {
+            long end = i == splits - 1 ? Long.MAX_VALUE : start + step;
+            ranges.add(new TokenRange(start, end));
+            start = end;
+        }
+        return ranges;
+    }
+
     @Override
     public Mono<GroupDto> updateGroup(UUID groupID, CreateGroupDto dto) {
-        return repository.findById(groupID)
-                .flatMap(group -> updateGroup(group, dto))
+        return scyllaMetrics.time(GROUP_READ, repository.findById(groupID))
+                .flatMap(group -> {
+                    Set<UUID> before = participants(group);
+                    return updateGroup(group, dto)
+                            .flatMap(updated -> reindexMembers(updated, before).thenReturn(updated));
+                })
+                // a load that read the row before the update must not cache it afterwards (see loadOnce)
+                .doOnNext(updated -> inFlight.remove(groupID))
                 .flatMap(redisService::saveGroup)
+                .flatMap(this::writeThroughNearCache)
                 .doOnSuccess(success ->
                         log.debug("Group successfully updated and saved to redis")
                 )
@@ -85,6 +255,129 @@ public class GroupServiceImpl implements GroupService {
                 });
     }
 
+    /**
+     * Adds to the members set without reading or rewriting the row; the set
+     * union makes re-adding an existing member, or two concurrent adds, harmless.
+     */
+    @Override
+    public Mono<Void> addMembers(UUID groupID, Collection<UUID> userIds) {
+        if (userIds.size() > MAX_MEMBER_CHANGE) {
+            return Mono.error(new IllegalArgumentException("At most " + MAX_MEMBER_CHANGE + " members per request"));
+        }
+        if (userIds.isEmpty()) {
+            return Mono.empty();
+        }
+        Set<UUID> added = new LinkedHashSet<>(userIds);
+        return existing(groupID)
+                .then(scyllaMetrics.time(GROUP_MEMBERS, operations.getReactiveCqlOperations()
+                        .execute(APPEND_MEMBERS, added, Instant.now(), groupID)))
+                .then(membershipService.addMembers(groupID, ChatType.GROUP, added))
+                .then(evict(groupID))
+                .timeout(Duration.ofSeconds(5))
+                .onErrorResume(err -> {
+                    log.error("Failed to add members to group {}", groupID, err);
+                    return Mono.error(new RuntimeException("Failed to add members to group, ", err));
+                });
+    }
+
+    @Override
+    public Mono<Void> removeMembers(UUID groupID, Collection<UUID> userIds) {
+        if (userIds.size() > MAX_MEMBER_CHANGE) {
+            return Mono.error(new IllegalArgumentException("At most " + MAX_MEMBER_CHANGE + " members per request"));
+        }
+        if (userIds.isEmpty()) {
+            return Mono.empty();
+        }
+        Set<UUID> removed = new LinkedHashSet<>(userIds);
+        // the admin is a participant through the admin column, so it keeps the chat even if listed as a member
+        return existing(groupID)
+                .flatMap(groupAdmin -> {
+                    Set<UUID> unindexed = new LinkedHashSet<>(removed);
+                    groupAdmin.ifPresent(unindexed::remove);
+                    return scyllaMetrics.time(GROUP_MEMBERS, operations.getReactiveCqlOperations()
+                                    .execute(REMOVE_MEMBERS, removed, Instant.now(), groupID))
+                            .then(membershipService.removeMembers(groupID, unindexed));
+                })
+                .then(evict(groupID))
+                .timeout(Duration.ofSeconds(5))
+                .onErrorResume(err -> {
+                    log.error("Failed to remove members from group {}", groupID, err);
+                    return Mono.error(new RuntimeException("Failed to remove members from group, ", err));
+                });
+    }
+
+    /**
+     * Single-flight load from ScyllaDB into Redis: concurrent misses for the
+     * same group share one findById + saveGroup instead of each firing its own.
+     * A finished load removes only its own entry, never a newer load's.
+     * An {@link #evict} or update while the load runs unregisters it; the load then
+     * drops what it wrote (it may predate the change) and hands over to a
+     * fresh load, so a stale row is never left in Redis or returned.
+     */
+    private Mono<Group> loadOnce(UUID groupID) {
+        return inFlight.computeIfAbsent(groupID, id -> {
+            AtomicReference<Mono<Group>> self = new AtomicReference<>();
+            Mono<Group> load = scyllaMetrics.time(GROUP_READ, repository.findById(id))
+                    .flatMap(redisService::saveGroup)
+                    .flatMap(group -> inFlight.get(id) == self.get()
+                            ? Mono.just(group)
+                            : redisService.evictGroup(id).then(Mono.defer(() -> loadOnce(id))))
+                    .onErrorResume(err ->
+                            Mono.error(new RuntimeException("Failed to save group to redis and find data in repo"))
+                    )
+                    .doFinally(signal -> inFlight.remove(id, self.get()))
+                    .cache();
+            self.set(load);
+            return load;
+        });
+    }
+
+    // the admin column of the group (empty Optional if unset), or a not-found error
+    private Mono<Optional<UUID>> existing(UUID groupID) {
+        return scyllaMetrics.time(GROUP_READ, operations.getReactiveCqlOperations()
+                        .queryForRows(SELECT_ADMIN, groupID)
+                        .next())
+                .map(row -> Optional.ofNullable(row.getUuid("admin")))
+                .switchIfEmpty(Mono.error(new ServiceExceptions("Group not found: " + groupID)));
+    }
+
+    private Mono<Void> reindexMembers(Group group, Set<UUID> before) {
+        Set<UUID> after = participants(group);
+        Set<UUID> added = new LinkedHashSet<>(after);
+        added.removeAll(before);
+        Set<UUID> removed = new LinkedHashSet<>(before);
+        removed.removeAll(after);
+
+        return membershipService.addMembers(group.getGroupID(), ChatType.GROUP, added)
+                .then(membershipService.removeMembers(group.getGroupID(), removed));
+    }
+
+    private static Set<UUID> participants(Group group) {
+        Set<UUID> users = new LinkedHashSet<>();
+        if (group.getMembers() != null) {
+            users.addAll(group.getMembers());
+        }
+        if (group.getAdmin() != null) {
+            users.add(group.getAdmin());
+        }
+        return users;
+    }
+
+    // the cached value is one serialized blob, so it is dropped and reloaded rather than patched;
+    // a load already running may have read the old row, so it is unregistered first (see loadOnce)
+    private Mono<Void> evict(UUID groupID) {
+        return Mono.fromRunnable(() -> inFlight.remove(groupID))
+                .then(redisService.evictGroup(groupID))
+                .then(nearCache.invalidate(groupID));
+    }
+
+    // other nodes drop their L1 copy, this node keeps the fresh one
+    private Mono<Group> writeThroughNearCache(Group group) {
+        return nearCache.invalidate(group.getGroupID())
+                .then(Mono.fromRunnable(() -> nearCache.put(group)))
+                .thenReturn(group);
+    }
+
     private Mono<Group> updateGroup(Group group , CreateGroupDto dto){
 
         group.setGroupID(group.getGroupID());
@@ -92,11 +385,11 @@ public class GroupServiceImpl implements GroupService {
 
         group.setTitle(dto.title());
         group.setDescription(dto.description());
-        group.setMembers(dto.members());
+        group.setMembers(dto.members() == null ? null : new LinkedHashSet<>(dto.members()));
 
         group.setCreated_at(Instant.now());
         group.setUpdated_at(Instant.now());
 
-        return repository.save(group);
+        return scyllaMetrics.time(GROUP_WRITE, repository.save(group));
     }
 }
\ No newline at end of file
@@ -0,0 +1,154 @@
+package com.chatapp.chat_service.domain.service;
+
+import com.chatapp.chat_service.domain.model.ChatType;
+import com.chatapp.chat_service.domain.model.UserChat;
+import com.chatapp.chat_service.domain.repository.UserChatRepository;
+import com.chatapp.chat_service.infrastructure.persistence.jpa.MembershipService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.cassandra.core.mapping.BasicMapId;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Maintains the user -> chats index ({@code user_chats} table) and its
+ * Redis set cache {@code user:{<id>}:chats}. The set is dropped whenever the
+ * user's memberships change and rebuilt from the table on the next read,
+ * so a partially filled set is never served. A user in no chats is cached
+ * too, as a set holding only the {@code -} marker.
+ * <p>
+ * Each drop also bumps the user's generation, {@code user:{<id>}:chats:gen}.
+ * A rebuild notes the generation before it reads the table and writes the
+ * set only if it is unchanged, so a read that raced a membership change
+ * never caches the chats from before it. Both keys share a hash tag, so the
+ * scripts stay on one slot.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class MembershipServiceImpl implements MembershipService {
+
+    private static final Duration CHATS_TTL = Duration.ofHours(1);
+    // the only member of a cached empty set; never a valid UUID
+    private static final String EMPTY = "-";
+    private static final String UNCACHEABLE = "?";
+    // KEYS[1] = set, KEYS[2] = generation; ARGV = generation seen before the read ('' if none), ttl ms, members ...
+    private static final RedisScript<Long> CACHE = RedisScript.of("""
+            if (redis.call('GET', KEYS[2]) or '') ~= ARGV[1] then return 0 end
+            redis.call('DEL', KEYS[1])
+            for i = 3, #ARGV do redis.call('SADD', KEYS[1], ARGV[i]) end
+            redis.call('PEXPIRE', KEYS[1], ARGV[2])
+            return 1
+            """, Long.class);
+    // KEYS[1] = set, KEYS[2] = generation; ARGV = ttl ms, outliving any rebuild still in flight
+    private static final RedisScript<Long> EVICT = RedisScript.of("""
+            redis.call('INCR', KEYS[2])
+            redis.call('PEXPIRE', KEYS[2], ARGV[1])
+            return redis.call('DEL', KEYS[1])
+            """, Long.class);
+    private static final int WRITE_CONCURRENCY = 16;
+
+    private final UserChatRepository repository;
+    private final ReactiveStringRedisTemplate redisTemplate;
+
+    @Override
+    public Flux<UUID> getChatIds(UUID userId) {
+        return redisTemplate.opsForSet().members(key(userId))
+                .collectList()
+                .onErrorResume(err -> {
+                    log.warn("Failed to read chats of user {} from redis: {}", userId, err.getMessage());
+                    return Mono.just(List.of());
+                })
+                .flatMapMany(cached -> cached.isEmpty()
+                        ? loadAndCache(userId)
+                        : Flux.fromIterable(cached).filter(member -> !EMPTY.equals(member)).map(UUID::fromString));
+    }
+
+    @Override
+    public Mono<Void> addMembers(UUID chatId, ChatType type, Collection<UUID> userIds) {
+        return Flux.fromIterable(userIds)
+                .distinct()
+                .flatMap(userId -> repository.save(new UserChat(userId, chatId, type)), WRITE_CONCURRENCY)
+                .map(UserChat::getUserId)
+                .collectList()
+                .flatMap(this::evict)
+                .timeout(Duration.ofSeconds(5))
+                .onErrorResume(err ->
+                        Mono.error(new RuntimeException("Failed to index members of chat " + chatId, err))
+                );
+    }
+
+    @Override
+    public Mono<Void> removeMembers(UUID chatId, Collection<UUID> userIds) {
+        return Flux.fromIterable(userIds)
+                .distinct()
+                .flatMap(userId -> repository.deleteById(BasicMapId.id("userId", userId).with("chatId", chatId))
+                        .thenReturn(userId), WRITE_CONCURRENCY)
+                .collectList()
+                .flatMap(this::evict)
+                .timeout(Duration.ofSeconds(5))
+                .onErrorResume(err ->
+                        Mono.error(new RuntimeException("Failed to remove members of chat " + chatId, err))
+                );
+    }
+
+    private Flux<UUID> loadAndCache(UUID userId) {
+        // with Redis unreachable the table is still read, the result just is not cached
+        Mono<String> generation = redisTemplate.opsForValue().get(generationKey(userId))
+                .defaultIfEmpty("")
+                .onErrorResume(err -> Mono.just(UNCACHEABLE));
+        return generation.flatMapMany(seen -> repository.findByUserId(userId)
+                .map(UserChat::getChatId)
+                .collectList()
+                .flatMapMany(chatIds -> cache(userId, seen, chatIds).thenMany(Flux.fromIterable(chatIds))));
+    }
+
+    private Mono<Void> cache(UUID userId, String generation, List<UUID> chatIds) {
+        if (UNCACHEABLE.equals(generation)) {
+            return Mono.empty();
+        }
+        List<String> args = new ArrayList<>(chatIds.size() + 3);
+        args.add(generation);
+        args.add(Long.toString(CHATS_TTL.toMillis()));
+        if (chatIds.isEmpty()) {
+            args.add(EMPTY);
+        } else {
+            chatIds.forEach(chatId -> args.add(chatId.toString()));
+        }
+        return redisTemplate.execute(CACHE, List.of(key(userId), generationKey(userId)), args)
+                .onErrorResume(err -> {
+                    log.warn("Failed to cache chats of user {}: {}", userId, err.getMessage());
+                    return Mono.empty();
+                })
+                .then();
+    }
+
+    private Mono<Void> evict(List<UUID> userIds) {
+        List<String> ttl = List.of(Long.toString(CHATS_TTL.toMillis()));
+        return Flux.fromIterable(userIds)
+                .flatMap(userId -> redisTemplate.execute(EVICT, List.of(key(userId), generationKey(userId)), ttl),
+                        WRITE_CONCURRENCY)
+                .onErrorResume(err -> {
+                    log.warn("Failed to evict chat sets of {} users: {}", userIds.size(), err.getMessage());
+                    return Mono.empty();
+                })
+                .then();
+    }
+
+    private static String key(UUID userId) {
+        return "user:{" + userId + "}:chats";
+    }
+
+    private static String generationKey(UUID userId) {
+        return key(userId) + ":gen";
+    }
+}
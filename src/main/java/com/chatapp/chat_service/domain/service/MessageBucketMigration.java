@@ -0,0 +1,71 @@
+package com.chatapp.chat_service.domain.service;
+
+import com.chatapp.chat_service.domain.model.ChatBucket;
+import com.chatapp.chat_service.domain.model.Message;
+import com.chatapp.chat_service.domain.repository.ChatBucketRepository;
+import com.chatapp.chat_service.domain.repository.LegacyMessageRepository;
+import com.chatapp.chat_service.domain.repository.MessageRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * One-off copy of the old {@code messages} table into {@code messages_by_bucket},
+ * bucketed by createdAt (see {@link com.chatapp.chat_service.domain.model.LegacyMessage#toMessage()}),
+ * and of each bucket into the bucket index.
+ * Enabled with {@code chat.migration.messages-to-buckets=true}; rows are streamed
+ * with driver paging, so memory stays flat. Writes are idempotent upserts,
+ * so an interrupted run can simply be started again.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "chat.migration.messages-to-buckets", havingValue = "true")
+public class MessageBucketMigration implements ApplicationRunner {
+
+    private final LegacyMessageRepository legacyRepository;
+    private final MessageRepository repository;
+    private final ChatBucketRepository bucketIndex;
+
+    @Value("${chat.migration.concurrency:32}")
+    private int concurrency = 32;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        migrate().block();
+    }
+
+    public Mono<Long> migrate() {
+        AtomicLong copied = new AtomicLong();
+        AtomicLong skipped = new AtomicLong();
+        return legacyRepository.findAll()
+                .mapNotNull(legacy -> {
+                    Message message = legacy.toMessage();
+                    if (message == null) {
+                        skipped.incrementAndGet();
+                        log.warn("Skipping message {} of chat {}: no timestamp to bucket it by",
+                                legacy.getMessageID(), legacy.getChatId());
+                    }
+                    return message;
+                })
+                .flatMap(message -> bucketIndex.save(new ChatBucket(message.getChatId(), message.getBucket()))
+                        .then(repository.save(message)), concurrency)
+                .doOnNext(msg -> {
+                    long done = copied.incrementAndGet();
+                    if (done % 10_000 == 0) {
+                        log.info("Migrated {} messages", done);
+                    }
+                })
+                .count()
+                .doOnSuccess(total -> log.info("Message bucket migration finished, {} messages copied, {} skipped",
+                        total, skipped.get()))
+                .doOnError(err -> log.error("Message bucket migration failed after {} messages", copied.get(), err));
+    }
+}
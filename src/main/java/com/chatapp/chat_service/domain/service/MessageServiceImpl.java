@@ -1,74 +1,187 @@
 package com.chatapp.chat_service.domain.service;
 
 import com.chatapp.chat_service.domain.model.Message;
+import com.chatapp.chat_service.domain.model.ChatBucket;
+import com.chatapp.chat_service.domain.model.MessageBucket;
+import com.chatapp.chat_service.domain.repository.ChatBucketRepository;
 import com.chatapp.chat_service.domain.repository.MessageRepository;
+import com.chatapp.chat_service.infrastructure.persistence.db.ScyllaMetrics;
 import com.chatapp.chat_service.infrastructure.persistence.jpa.MessageService;
+import com.chatapp.chat_service.infrastructure.persistence.jpa.UnreadCounterService;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
-import org.springframework.data.domain.Sort;
+import org.springframework.data.cassandra.core.mapping.BasicMapId;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.time.Clock;
 import java.time.Duration;
 import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.chatapp.chat_service.infrastructure.persistence.db.ScyllaMetrics.Operation.*;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class MessageServiceImpl implements MessageService {
 
-    private final MessageRepository repository;
+    // rows per history request, and so the largest window the recent-message ring is asked for
+    static final int MAX_LIMIT = 1000;
+    private static final Duration UNREAD_BUMP_TIMEOUT = Duration.ofSeconds(5);
 
+    private final MessageRepository repository;
+    private final ChatBucketRepository bucketIndex;
+    private final MessageWriteBehind writeBehind;
+    private final UnreadCounterService unreadCounters;
+    private final RecentMessageBuffer recentMessages;
+    private final Clock clock;
+    private final ScyllaMetrics scyllaMetrics;
+    private final MeterRegistry meterRegistry;
 
+    /**
+     * Acknowledged once the message is durable. Unread counters are bumped
+     * after that, off the ack path: in a large group the bump is one Redis
+     * call per recipient, and a slow or failed bump must neither delay nor
+     * fail a send that is already stored.
+     */
     @Override
     public Mono<Message> sendAMessage(Message message) {
 
-        return repository.save(message)
+        return writeBehind.submit(message)
+                .doOnNext(recentMessages::append)
+                .doOnNext(this::bumpUnreadCounters)
                 .timeout(Duration.ofSeconds(5))
                 .onErrorResume(throwable ->
-                        Mono.error(new RuntimeException("Error saving message"))
+                        Mono.error(new RuntimeException("Error saving message", throwable))
                 );
     }
 
+    private void bumpUnreadCounters(Message saved) {
+        unreadCounters.onMessage(saved)
+                .timeout(UNREAD_BUMP_TIMEOUT)
+                .subscribe(null, err -> {
+                    meterRegistry.counter("chat.unread.bump.failures").increment();
+                    log.warn("Unread counters of chat {} not bumped for message {}: {}",
+                            saved.getChatId(), saved.getMessageID(), err.toString());
+                });
+    }
+
     @Override
-    public Mono<Message> getMessageByID(UUID messageID) {
-        return repository.findById(messageID)
+    public Mono<Message> getMessageByID(UUID chatID, UUID messageID) {
+        if (!MessageBucket.isTimeOrdered(messageID)) {
+            return Mono.error(new IllegalArgumentException("Not a message id: " + messageID));
+        }
+        var id = BasicMapId.id("chatId", chatID)
+                .with("bucket", MessageBucket.of(messageID))
+                .with("messageID", messageID);
+
+        return scyllaMetrics.time(MESSAGE_GET, repository.findById(id))
                 .timeout(Duration.ofSeconds(5))
                 .onErrorResume(throwable ->
-                        Mono.error(new RuntimeException("Error fetching message"))
+                        Mono.error(new RuntimeException("Error fetching message", throwable))
                 );
     }
 
     @Override
     public Flux<Message> getMessageByChatID(UUID chatID) {
-        return repository.findByChatId(chatID)
-                .doOnNext(msg ->
-                        log.debug("Retrieved message: {}" , msg.getMessageID())
-                )
+        return scyllaMetrics.time(MESSAGE_HISTORY, bucketIndex.findByChatId(chatID)
+                        .concatMap(b -> repository.findByChatIdAndBucket(chatID, b.getBucket())))
                 .timeout(Duration.ofSeconds(5))
                 .onErrorResume(throwable ->
-                        Flux.error(new RuntimeException("Error fetching messages"))
+                        Flux.error(new RuntimeException("Error fetching messages", throwable))
                 );
     }
 
+    /**
+     * Served from the recent-message ring when it already holds the whole
+     * window, which is the common case for a chat that is active on this node.
+     */
     @Override
     public Flux<Message> getRecentMessages(UUID chatID, int limit) {
-        if(limit <1 || limit > 1000) {
-            return Flux.error(new IllegalArgumentException("Limit 1 .. 1000"));
+        if (limit >= 1 && limit <= MAX_LIMIT) {
+            var cached = recentMessages.recent(chatID, limit);
+            if (cached.isPresent()) {
+                return Flux.fromIterable(cached.get());
+            }
+        }
+        return getMessagesBefore(chatID, null, limit);
+    }
+
+    /**
+     * Walks the chat's non-empty buckets (see {@link ChatBucket}) from the
+     * cursor's bucket backwards, one partition at a time, asking each only
+     * for the rows still missing, and stops as soon as {@code limit} rows were taken.
+     */
+    @Override
+    public Flux<Message> getMessagesBefore(UUID chatID, UUID before, int limit) {
+        if(limit <1 || limit > MAX_LIMIT) {
+            return Flux.error(new IllegalArgumentException("Limit 1 .. " + MAX_LIMIT));
+        }
+        if (before != null && !MessageBucket.isTimeOrdered(before)) {
+            return Flux.error(new IllegalArgumentException("Cursor 'before' is not a message id"));
         }
-        Pageable pageable = PageRequest.of(0 ,
-                limit , Sort.by("messageId").descending());
+        int start = before == null ? MessageBucket.current(clock) : MessageBucket.of(before);
+
+        Flux<Message> history = Flux.defer(() -> {
+            AtomicInteger remaining = new AtomicInteger(limit);
+            return bucketIndex.findByChatIdAndBucketLessThanEqual(chatID, start)
+                    .concatMap(b -> {
+                        int bucket = b.getBucket();
+                        Limit rest = Limit.of(remaining.get());
+                        Flux<Message> page = before != null && bucket == start
+                                ? repository.findByChatIdAndBucketAndMessageIDLessThan(chatID, bucket, before, rest)
+                                : repository.findByChatIdAndBucket(chatID, bucket, rest);
+                        return page.doOnNext(m -> remaining.decrementAndGet());
+                    })
+                    .take(limit);
+        });
+
+        return scyllaMetrics.time(MESSAGE_HISTORY, history)
+                .timeout(Duration.ofSeconds(5))
+                .onErrorResume(throwable ->
+                        Flux.error(new RuntimeException("Error fetching recent messages", throwable))
+                );
+    }
+
+    /**
+     * Walks the chat's non-empty buckets from the cursor's bucket forward,
+     * the same way {@link #getMessagesBefore} walks backwards.
+     */
+    @Override
+    public Flux<Message> getMessagesAfter(UUID chatID, UUID after, int limit) {
+        if(limit <1 || limit > MAX_LIMIT) {
+            return Flux.error(new IllegalArgumentException("Limit 1 .. " + MAX_LIMIT));
+        }
+        if (after == null) {
+            return Flux.error(new IllegalArgumentException("Cursor 'after' is required"));
+        }
+        if (!MessageBucket.isTimeOrdered(after)) {
+            return Flux.error(new IllegalArgumentException("Cursor 'after' is not a message id"));
+        }
+        int start = MessageBucket.of(after);
+
+        Flux<Message> missed = Flux.defer(() -> {
+            AtomicInteger remaining = new AtomicInteger(limit);
+            return bucketIndex.findByChatIdAndBucketGreaterThanEqualOrderByBucketAsc(chatID, start)
+                    .concatMap(b -> {
+                        int bucket = b.getBucket();
+                        Limit rest = Limit.of(remaining.get());
+                        Flux<Message> page = bucket == start
+                                ? repository.findByChatIdAndBucketAndMessageIDGreaterThanOrderByMessageIDAsc(chatID, bucket, after, rest)
+                                : repository.findByChatIdAndBucketOrderByMessageIDAsc(chatID, bucket, rest);
+                        return page.doOnNext(m -> remaining.decrementAndGet());
+                    })
+                    .take(limit);
+        });
 
-        return repository.findByChatId(chatID , pageable)
+        return scyllaMetrics.time(MESSAGE_AFTER, missed)
                 .timeout(Duration.ofSeconds(5))
-                .doOnNext(msg ->
-                        log.debug("Retrieved message: {}", msg.getMessageID())
-                )
                 .onErrorResume(throwable ->
-                        Flux.error(new RuntimeException("Error fetching recent messages"))
+                        Flux.error(new RuntimeException("Error fetching messages after cursor", throwable))
                 );
     }
 }
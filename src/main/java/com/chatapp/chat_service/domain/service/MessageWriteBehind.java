@@ -0,0 +1,195 @@
+package com.chatapp.chat_service.domain.service;
+
+import com.chatapp.chat_service.domain.exception.ServiceExceptions;
+import com.chatapp.chat_service.domain.model.Message;
+import com.chatapp.chat_service.domain.model.ChatBucket;
+import com.chatapp.chat_service.domain.model.MessageBucket;
+import com.chatapp.chat_service.domain.repository.ChatBucketRepository;
+import com.chatapp.chat_service.domain.repository.MessageRepository;
+import com.chatapp.chat_service.infrastructure.persistence.db.ScyllaMetrics;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.cassandra.core.ReactiveCassandraOperations;
+import org.springframework.data.cassandra.core.cql.BatchType;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.chatapp.chat_service.infrastructure.persistence.db.ScyllaMetrics.Operation.MESSAGE_WRITE;
+
+/**
+ * Write-behind ingest for messages. Writes are collected for up to
+ * {@code batch-size} messages or {@code flush-window}, grouped by their
+ * (chatId, bucket) partition and flushed as one UNLOGGED batch per
+ * partition. A caller is acknowledged only after its partition write succeeded.
+ * Partition writes of all batches share one stream, so at most
+ * {@code max-in-flight} of them run at any time.
+ * <p>
+ * The first write to a partition also records it in the bucket index
+ * ({@link ChatBucket}) before any message lands in it, so history reads
+ * never miss a bucket. Partitions already indexed are remembered locally
+ * and not written again.
+ */
+@Slf4j
+@Component
+public class MessageWriteBehind {
+
+    private record PendingWrite(Message message, MonoSink<Message> ack) {}
+
+    private record Partition(UUID chatId, Integer bucket) {}
+
+    // one flushed batch; its latency is recorded when the last partition is done
+    private record Flush(long start, AtomicInteger remaining) {}
+
+    private record PartitionWrite(Partition partition, List<PendingWrite> writes, Flush flush) {}
+
+    private final MessageRepository repository;
+    private final ChatBucketRepository bucketIndex;
+    private final ReactiveCassandraOperations operations;
+    private final ScyllaMetrics scyllaMetrics;
+    private final int maxInFlight;
+    private final int maxPending;
+
+    private final AtomicInteger pending = new AtomicInteger();
+    private final Cache<Partition, Boolean> indexed = Caffeine.newBuilder()
+            .maximumSize(100_000)
+            .build();
+    private final Sinks.Many<PendingWrite> ingest = Sinks.many().unicast().onBackpressureBuffer();
+    private final DistributionSummary batchSizes;
+    private final Timer flushLatency;
+    private final Disposable pipeline;
+
+    public MessageWriteBehind(
+            MessageRepository repository,
+            ChatBucketRepository bucketIndex,
+            ReactiveCassandraOperations operations,
+            ScyllaMetrics scyllaMetrics,
+            MeterRegistry meterRegistry,
+            @Value("${chat.messages.write.batch-size:64}") int batchSize,
+            @Value("${chat.messages.write.flush-window:5ms}") Duration flushWindow,
+            @Value("${chat.messages.write.max-in-flight:16}") int maxInFlight,
+            @Value("${chat.messages.write.max-pending:10000}") int maxPending
+    ) {
+        this.repository = repository;
+        this.bucketIndex = bucketIndex;
+        this.operations = operations;
+        this.scyllaMetrics = scyllaMetrics;
+        this.maxInFlight = maxInFlight;
+        this.maxPending = maxPending;
+
+        this.batchSizes = DistributionSummary.builder("chat.messages.write.batch.size")
+                .description("Messages per write-behind flush")
+                .register(meterRegistry);
+        this.flushLatency = Timer.builder("chat.messages.write.flush")
+                .description("Time to make one write-behind flush durable")
+                .register(meterRegistry);
+
+        this.pipeline = ingest.asFlux()
+                .bufferTimeout(batchSize, flushWindow, true)
+                .concatMapIterable(this::partition)
+                .flatMap(this::writePartition, maxInFlight)
+                .subscribe();
+    }
+
+    public Mono<Message> submit(Message message) {
+        if (message.getChatId() == null) {
+            return Mono.error(new ServiceExceptions("Message has no chatId"));
+        }
+        if (!MessageBucket.isTimeOrdered(message.getMessageID())) {
+            return Mono.error(new ServiceExceptions("Message id must be a server-assigned UUIDv7"));
+        }
+        if (message.getBucket() == null) {
+            message.setBucket(MessageBucket.of(message));
+        }
+        return Mono.create(sink -> {
+            if (pending.incrementAndGet() > maxPending) {
+                pending.decrementAndGet();
+                sink.error(new ServiceExceptions("Message write queue is full"));
+                return;
+            }
+            try {
+                ingest.emitNext(new PendingWrite(message, sink),
+                        Sinks.EmitFailureHandler.busyLooping(Duration.ofMillis(50)));
+            } catch (Exception e) {
+                pending.decrementAndGet();
+                sink.error(new ServiceExceptions("Message write queue is closed", e));
+            }
+        });
+    }
+
+    public int pending() {
+        return pending.get();
+    }
+
+    private List<PartitionWrite> partition(List<PendingWrite> batch) {
+        batchSizes.record(batch.size());
+
+        Map<Partition, List<PendingWrite>> byPartition = new LinkedHashMap<>();
+        for (PendingWrite write : batch) {
+            Message message = write.message();
+            byPartition.computeIfAbsent(new Partition(message.getChatId(), message.getBucket()), p -> new ArrayList<>())
+                    .add(write);
+        }
+
+        Flush flush = new Flush(System.nanoTime(), new AtomicInteger(byPartition.size()));
+        List<PartitionWrite> writes = new ArrayList<>(byPartition.size());
+        byPartition.forEach((partition, group) -> writes.add(new PartitionWrite(partition, group, flush)));
+        return writes;
+    }
+
+    private Mono<Void> writePartition(PartitionWrite partitionWrite) {
+        Partition partition = partitionWrite.partition();
+        List<PendingWrite> writes = partitionWrite.writes();
+        Flush flush = partitionWrite.flush();
+        // timed here rather than around submit(), so queueing in the buffer is not counted as ScyllaDB latency
+        Mono<?> messages = scyllaMetrics.time(MESSAGE_WRITE, writes.size() == 1
+                ? repository.save(writes.getFirst().message())
+                : operations.batchOps(BatchType.UNLOGGED)
+                        .insert(writes.stream().map(PendingWrite::message).toList())
+                        .execute());
+        Mono<?> write = indexed.getIfPresent(partition) != null
+                ? messages
+                : bucketIndex.save(new ChatBucket(partition.chatId(), partition.bucket()))
+                        .doOnSuccess(ok -> indexed.put(partition, Boolean.TRUE))
+                        .then(messages);
+
+        return write
+                .doOnSuccess(ok -> writes.forEach(w -> w.ack().success(w.message())))
+                .doOnError(err -> {
+                    log.error("Failed to flush {} messages of chat {}: {}",
+                            writes.size(), writes.getFirst().message().getChatId(), err.getMessage());
+                    writes.forEach(w -> w.ack().error(err));
+                })
+                .onErrorResume(err -> Mono.empty())
+                .doFinally(signal -> {
+                    pending.addAndGet(-writes.size());
+                    if (flush.remaining().decrementAndGet() == 0) {
+                        flushLatency.record(System.nanoTime() - flush.start(), TimeUnit.NANOSECONDS);
+                    }
+                })
+                .then();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        // completing the sink flushes whatever is still buffered
+        ingest.tryEmitComplete();
+    }
+}
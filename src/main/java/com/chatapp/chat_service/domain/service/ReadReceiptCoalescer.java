@@ -0,0 +1,219 @@
+package com.chatapp.chat_service.domain.service;
+
+import com.chatapp.chat_service.domain.model.MessageBucket;
+import com.chatapp.chat_service.domain.model.ReadState;
+import com.chatapp.chat_service.domain.model.ReceiptType;
+import com.chatapp.chat_service.infrastructure.config.TimeOrderedIdGenerator;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.cassandra.core.ReactiveCassandraOperations;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.util.retry.Retry;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coalesces receipt acks into one watermark per (chat, user). However many
+ * acks arrive between two flushes, each pair costs at most one row write
+ * and one receipt fan-out per {@code flush-interval}. Flushed states are
+ * published on {@link #flushed()} for the WebSocket relay and unread counters.
+ * <p>
+ * Watermarks never move back. Acks that do not advance the last flushed
+ * watermark of this node are dropped, and each column is written with the
+ * time of its message id as the cell timestamp, so a stale write from any
+ * node loses to the newer one already stored.
+ */
+@Slf4j
+@Component
+public class ReadReceiptCoalescer {
+
+    private record Key(UUID chatId, UUID userId) {}
+
+    private record Watermark(UUID delivered, UUID read) {
+
+        Watermark merge(Watermark other) {
+            return new Watermark(newest(delivered, other.delivered), newest(read, other.read));
+        }
+    }
+
+    private static final String UPDATE_DELIVERED =
+            "UPDATE chat_read_state USING TIMESTAMP ? SET deliveredUpTo = ?, updatedAt = ? WHERE chatId = ? AND userId = ?";
+    private static final String UPDATE_READ =
+            "UPDATE chat_read_state USING TIMESTAMP ? SET readUpTo = ?, updatedAt = ? WHERE chatId = ? AND userId = ?";
+
+    private final ReactiveCassandraOperations operations;
+    private final Clock clock;
+    private final int maxInFlight;
+
+    private final ConcurrentHashMap<Key, Watermark> pending = new ConcurrentHashMap<>();
+    private final Cache<Key, Watermark> lastFlushed = Caffeine.newBuilder()
+            .maximumSize(100_000)
+            .expireAfterAccess(Duration.ofHours(1))
+            .build();
+    private final Sinks.Many<ReadState> flushed = Sinks.many().multicast().directBestEffort();
+    private final Counter acks;
+    private final Counter writes;
+    private final Disposable ticker;
+
+    public ReadReceiptCoalescer(
+            ReactiveCassandraOperations operations,
+            Clock clock,
+            MeterRegistry meterRegistry,
+            @Value("${chat.receipts.flush-interval:1s}") Duration flushInterval,
+            @Value("${chat.receipts.max-in-flight:16}") int maxInFlight
+    ) {
+        this.operations = operations;
+        this.clock = clock;
+        this.maxInFlight = maxInFlight;
+
+        this.acks = Counter.builder("chat.receipts.acks")
+                .description("Receipt acks received from clients")
+                .register(meterRegistry);
+        this.writes = Counter.builder("chat.receipts.writes")
+                .description("Watermark rows written; acks / writes is the coalescing ratio")
+                .register(meterRegistry);
+        Gauge.builder("chat.receipts.pending", pending, Map::size)
+                .register(meterRegistry);
+
+        // a failed flush must not stop the ticker: errors are logged per tick,
+        // and anything escaping that resubscribes with backoff
+        this.ticker = Flux.interval(flushInterval)
+                .onBackpressureDrop()
+                .concatMap(tick -> flush()
+                        .onErrorResume(err -> {
+                            log.error("Receipt flush failed: {}", err.getMessage(), err);
+                            return Mono.empty();
+                        }))
+                .retryWhen(Retry.backoff(Long.MAX_VALUE, flushInterval)
+                        .maxBackoff(Duration.ofMinutes(1))
+                        .transientErrors(true)
+                        .doBeforeRetry(signal -> log.error("Receipt ticker failed, restarting: {}",
+                                signal.failure().getMessage())))
+                .subscribe();
+    }
+
+    public void ack(UUID chatId, UUID userId, ReceiptType type, UUID messageId) {
+        if (chatId == null || userId == null || !MessageBucket.isTimeOrdered(messageId)) {
+            return;
+        }
+        acks.increment();
+        // a read message is also delivered
+        Watermark mark = type == ReceiptType.READ
+                ? new Watermark(messageId, messageId)
+                : new Watermark(messageId, null);
+        pending.merge(new Key(chatId, userId), mark, Watermark::merge);
+    }
+
+    public Flux<ReadState> flushed() {
+        return flushed.asFlux();
+    }
+
+    public int pending() {
+        return pending.size();
+    }
+
+    Mono<Void> flush() {
+        if (pending.isEmpty()) {
+            return Mono.empty();
+        }
+        List<Map.Entry<Key, Watermark>> drained = new ArrayList<>(pending.size());
+        for (Key key : pending.keySet()) {
+            Watermark mark = pending.remove(key);
+            if (mark != null) {
+                drained.add(Map.entry(key, mark));
+            }
+        }
+
+        return Flux.fromIterable(drained)
+                .flatMap(entry -> write(entry.getKey(), entry.getValue()), maxInFlight)
+                .then();
+    }
+
+    private Mono<Void> write(Key key, Watermark mark) {
+        Watermark last = lastFlushed.getIfPresent(key);
+        UUID delivered = advanced(mark.delivered(), last == null ? null : last.delivered());
+        UUID read = advanced(mark.read(), last == null ? null : last.read());
+        if (delivered == null && read == null) {
+            return Mono.empty(); // stale ack, nothing moves forward
+        }
+        Watermark current = last == null ? mark : last.merge(mark);
+        ReadState state = new ReadState(key.chatId(), key.userId(), current.delivered(), current.read(), clock.instant());
+
+        Mono<Boolean> write = Mono.when(
+                column(UPDATE_DELIVERED, delivered, state, key),
+                column(UPDATE_READ, read, state, key)
+        ).thenReturn(true);
+
+        return write
+                .doOnSuccess(ok -> {
+                    writes.increment();
+                    lastFlushed.asMap().merge(key, current, Watermark::merge);
+                    flushed.emitNext(state, Sinks.EmitFailureHandler.busyLooping(Duration.ofMillis(50)));
+                })
+                .onErrorResume(err -> {
+                    log.warn("Failed to flush receipts of user {} in chat {}: {}",
+                            key.userId(), key.chatId(), err.getMessage());
+                    // put it back, a newer ack that arrived meanwhile still wins
+                    pending.merge(key, mark, Watermark::merge);
+                    return Mono.empty();
+                })
+                .then();
+    }
+
+    private Mono<Boolean> column(String update, UUID messageId, ReadState state, Key key) {
+        if (messageId == null) {
+            return Mono.empty();
+        }
+        // cell timestamp in micros from the id: the newest watermark wins whatever the write order
+        long timestamp = TimeUnit.MILLISECONDS.toMicros(TimeOrderedIdGenerator.timestampOf(messageId));
+        return operations.getReactiveCqlOperations().execute(update,
+                timestamp, messageId, state.getUpdatedAt(), key.chatId(), key.userId());
+    }
+
+    private static UUID advanced(UUID candidate, UUID previous) {
+        if (candidate == null || candidate.equals(previous)) {
+            return null;
+        }
+        return newest(candidate, previous) == candidate ? candidate : null;
+    }
+
+    /** Later of two message ids: UUIDv7 by embedded time, anything else by natural order. */
+    static UUID newest(UUID a, UUID b) {
+        if (a == null) return b;
+        if (b == null) return a;
+        long ta = TimeOrderedIdGenerator.timestampOf(a);
+        long tb = TimeOrderedIdGenerator.timestampOf(b);
+        if (ta >= 0 && tb >= 0) {
+            int cmp = Long.compareUnsigned(a.getMostSignificantBits(), b.getMostSignificantBits());
+            if (cmp == 0) {
+                cmp = Long.compareUnsigned(a.getLeastSignificantBits(), b.getLeastSignificantBits());
+            }
+            return cmp >= 0 ? a : b;
+        }
+        return a.compareTo(b) >= 0 ? a : b;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        ticker.dispose();
+        flush().block(Duration.ofSeconds(5));
+        flushed.tryEmitComplete();
+    }
+}
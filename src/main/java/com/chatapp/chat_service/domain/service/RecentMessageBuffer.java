@@ -0,0 +1,187 @@
+package com.chatapp.chat_service.domain.service;
+
+import com.chatapp.chat_service.domain.model.Message;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Last {@code capacity} messages of every chat this node is tracking, in
+ * arrival order. A chat is tracked while the node is subscribed to its
+ * fan-out channel, so a ring sees every message of its chat from the moment
+ * it was created; it is dropped as soon as that stops being true.
+ * <p>
+ * Rings live in a Caffeine cache weighed by their estimated heap size:
+ * idle chats expire after {@code idle-ttl} and the least valuable rings are
+ * evicted once all of them together exceed {@code max-memory}. An evicted
+ * ring of a still-tracked chat simply starts over empty on the next message.
+ */
+@Component
+public class RecentMessageBuffer {
+
+    // messageID order as ScyllaDB sorts the uuid column for v7 ids
+    private static final Comparator<Message> NEWEST_FIRST = Comparator
+            .comparing((Message m) -> m.getMessageID().getMostSignificantBits(), Long::compareUnsigned)
+            .thenComparing(m -> m.getMessageID().getLeastSignificantBits(), Long::compareUnsigned)
+            .reversed();
+
+    private final Set<UUID> tracked = ConcurrentHashMap.newKeySet();
+    private final Cache<UUID, Ring> rings;
+    private final int capacity;
+    private final Counter afterHits;
+    private final Counter afterMisses;
+    private final Counter recentHits;
+    private final Counter recentMisses;
+
+    public RecentMessageBuffer(
+            MeterRegistry meterRegistry,
+            @Value("${chat.messages.recent.capacity:256}") int capacity,
+            @Value("${chat.messages.recent.max-memory:64MB}") DataSize maxMemory,
+            @Value("${chat.messages.recent.idle-ttl:10m}") Duration idleTtl
+    ) {
+        this.capacity = capacity;
+        this.rings = Caffeine.newBuilder()
+                .maximumWeight(maxMemory.toBytes())
+                .weigher((UUID chatId, Ring ring) -> ring.weight())
+                .expireAfterAccess(idleTtl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, rings, "chat.messages.recent");
+
+        // reconnect gaps and history windows hit the ring at very different rates, so they are tagged apart
+        this.afterHits = reads(meterRegistry, "after", "hit");
+        this.afterMisses = reads(meterRegistry, "after", "miss");
+        this.recentHits = reads(meterRegistry, "recent", "hit");
+        this.recentMisses = reads(meterRegistry, "recent", "miss");
+        Gauge.builder("chat.messages.recent.memory", rings,
+                        cache -> cache.policy().eviction().map(e -> e.weightedSize().orElse(0L)).orElse(0L))
+                .baseUnit("bytes")
+                .description("Estimated heap held by recent-message rings")
+                .register(meterRegistry);
+    }
+
+    public void track(UUID chatId) {
+        tracked.add(chatId);
+    }
+
+    public void untrack(UUID chatId) {
+        tracked.remove(chatId);
+        rings.invalidate(chatId);
+    }
+
+    public boolean isTracked(UUID chatId) {
+        return tracked.contains(chatId);
+    }
+
+    public void append(Message message) {
+        if (message.getChatId() == null || message.getMessageID() == null || !tracked.contains(message.getChatId())) {
+            return;
+        }
+        // compute re-weighs the ring, so the memory cap sees every append
+        rings.asMap().compute(message.getChatId(), (chatId, ring) -> {
+            Ring target = ring != null ? ring : new Ring(capacity);
+            target.add(message);
+            return target;
+        });
+    }
+
+    /**
+     * Messages that arrived after {@code lastSeen}, or empty when the ring
+     * cannot prove it holds the whole gap (not tracked, or lastSeen already evicted).
+     */
+    public Optional<List<Message>> after(UUID chatId, UUID lastSeen) {
+        Ring ring = rings.getIfPresent(chatId);
+        Optional<List<Message>> gap = ring == null ? Optional.empty() : ring.after(lastSeen);
+        (gap.isPresent() ? afterHits : afterMisses).increment();
+        return gap;
+    }
+
+    /**
+     * The newest {@code limit} messages, newest first, when the ring holds at
+     * least that many; otherwise empty and the caller reads ScyllaDB.
+     */
+    public Optional<List<Message>> recent(UUID chatId, int limit) {
+        Ring ring = rings.getIfPresent(chatId);
+        Optional<List<Message>> window = ring == null ? Optional.empty() : ring.newest(limit);
+        (window.isPresent() ? recentHits : recentMisses).increment();
+        return window;
+    }
+
+    private static Counter reads(MeterRegistry meterRegistry, String read, String result) {
+        return Counter.builder("chat.messages.recent.reads")
+                .tag("read", read)
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    private static final class Ring {
+
+        // object headers, UUIDs, Instants and deque slot of one message
+        private static final int MESSAGE_OVERHEAD = 200;
+
+        private final ArrayDeque<Message> messages;
+        private final int capacity;
+        private long bytes;
+
+        Ring(int capacity) {
+            this.messages = new ArrayDeque<>(Math.min(capacity, 16));
+            this.capacity = capacity;
+        }
+
+        synchronized void add(Message message) {
+            if (messages.size() == capacity) {
+                bytes -= sizeOf(messages.pollFirst());
+            }
+            messages.addLast(message);
+            bytes += sizeOf(message);
+        }
+
+        synchronized int weight() {
+            return (int) Math.min(Integer.MAX_VALUE, bytes);
+        }
+
+        synchronized Optional<List<Message>> after(UUID lastSeen) {
+            List<Message> gap = new ArrayList<>();
+            Iterator<Message> it = messages.descendingIterator();
+            while (it.hasNext()) {
+                Message message = it.next();
+                if (message.getMessageID().equals(lastSeen)) {
+                    return Optional.of(gap.reversed());
+                }
+                gap.add(message);
+            }
+            return Optional.empty();
+        }
+
+        synchronized Optional<List<Message>> newest(int limit) {
+            if (messages.size() < limit) {
+                return Optional.empty();
+            }
+            List<Message> window = new ArrayList<>(messages);
+            window.sort(NEWEST_FIRST);
+            return Optional.of(List.copyOf(window.subList(0, limit)));
+        }
+
+        private static long sizeOf(Message message) {
+            String content = message.getContent();
+            return MESSAGE_OVERHEAD + (content == null ? 0 : 2L * content.length());
+        }
+    }
+}
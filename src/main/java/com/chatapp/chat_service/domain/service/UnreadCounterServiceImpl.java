@@ -0,0 +1,261 @@
+package com.chatapp.chat_service.domain.service;
+
+import com.chatapp.chat_service.api.dto.DirectDto;
+import com.chatapp.chat_service.domain.model.Message;
+import com.chatapp.chat_service.domain.model.MessageBucket;
+import com.chatapp.chat_service.domain.model.UnreadCount;
+import com.chatapp.chat_service.domain.repository.UnreadCountRepository;
+import com.chatapp.chat_service.infrastructure.persistence.jpa.DirectService;
+import com.chatapp.chat_service.infrastructure.persistence.jpa.GroupService;
+import com.chatapp.chat_service.infrastructure.persistence.jpa.UnreadCounterService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.cassandra.core.ReactiveCassandraOperations;
+import org.springframework.data.cassandra.core.cql.BatchType;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Unread counters live in one Redis hash per user, {@code unread:<userId>}
+ * with a field per chat, so "all my counts" is a single HGETALL. Sends
+ * HINCRBY every recipient and note the newest message id of the chat in
+ * {@code last:<chatId>}; a read watermark clears the chat only once it has
+ * caught up with that id, so a stale ack never hides newer messages. Users whose
+ * hash changed are checkpointed to {@code unread_counts} every
+ * {@code checkpoint-interval}.
+ * <p>
+ * A hash that was never merged with the checkpoint lacks the {@code _} field,
+ * whether the user is new or Redis lost the data. Such a hash is merged with
+ * the checkpoint (HINCRBY in one script, so counts bumped since the loss are
+ * kept) before it is read or checkpointed, so it never overwrites the
+ * checkpoint with partial counts.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class UnreadCounterServiceImpl implements UnreadCounterService {
+
+    private static final String KEY_PREFIX = "unread:";
+    // marks a hash merged with the checkpoint, so an all-read user is not reloaded on every call
+    private static final String RESTORED = "_";
+    // KEYS[1] = hash, ARGV = chat, count, chat, count ...; merges once, whoever gets there first
+    private static final RedisScript<Long> MERGE_CHECKPOINT = RedisScript.of("""
+            if redis.call('HEXISTS', KEYS[1], '_') == 1 then return 0 end
+            for i = 1, #ARGV, 2 do redis.call('HINCRBY', KEYS[1], ARGV[i], ARGV[i + 1]) end
+            redis.call('HSET', KEYS[1], '_', '1')
+            return 1
+            """, Long.class);
+    private static final String LAST = "last:";
+    // KEYS[1] = hash, ARGV = chat, message id; canonical UUIDv7 strings sort by time
+    private static final RedisScript<Long> BUMP = RedisScript.of("""
+            local count = redis.call('HINCRBY', KEYS[1], ARGV[1], 1)
+            local last = redis.call('HGET', KEYS[1], 'last:' .. ARGV[1])
+            if not last or last < ARGV[2] then redis.call('HSET', KEYS[1], 'last:' .. ARGV[1], ARGV[2]) end
+            return count
+            """, Long.class);
+    // KEYS[1] = hash, ARGV = chat, readUpTo
+    private static final RedisScript<Long> READ_UP_TO = RedisScript.of("""
+            local last = redis.call('HGET', KEYS[1], 'last:' .. ARGV[1])
+            if last and last > ARGV[2] then return 0 end
+            redis.call('HDEL', KEYS[1], ARGV[1], 'last:' .. ARGV[1])
+            return 1
+            """, Long.class);
+    private static final int WRITE_CONCURRENCY = 16;
+
+    private final ReactiveStringRedisTemplate redisTemplate;
+    private final UnreadCountRepository repository;
+    private final ReactiveCassandraOperations operations;
+    private final GroupService groupService;
+    private final DirectService directService;
+    private final ReadReceiptCoalescer receipts;
+
+    private final Set<UUID> dirty = ConcurrentHashMap.newKeySet();
+    private Disposable resets;
+    private Disposable checkpoints;
+
+    @Value("${chat.unread.checkpoint-interval:30s}")
+    private Duration checkpointInterval = Duration.ofSeconds(30);
+
+    @PostConstruct
+    public void start() {
+        resets = receipts.flushed()
+                .filter(state -> state.getReadUpTo() != null)
+                .flatMap(state -> markRead(state.getUserId(), state.getChatId(), state.getReadUpTo()), WRITE_CONCURRENCY)
+                .subscribe();
+        checkpoints = Flux.interval(checkpointInterval)
+                .onBackpressureDrop()
+                .concatMap(tick -> checkpoint())
+                .subscribe();
+    }
+
+    @Override
+    public Mono<Void> onMessage(Message message) {
+        if (message.getChatId() == null) {
+            return Mono.empty();
+        }
+        List<String> args = List.of(message.getChatId().toString(), String.valueOf(message.getMessageID()));
+        return recipients(message.getChatId())
+                .filter(userId -> !userId.equals(message.getSenderID()))
+                .flatMap(userId -> redisTemplate.execute(BUMP, List.of(key(userId)), args)
+                        .doOnComplete(() -> dirty.add(userId)), WRITE_CONCURRENCY)
+                .onErrorResume(err -> {
+                    log.warn("Failed to bump unread counters of chat {}: {}", message.getChatId(), err.getMessage());
+                    return Mono.empty();
+                })
+                .then();
+    }
+
+    @Override
+    public Mono<Void> markRead(UUID userId, UUID chatId, UUID readUpTo) {
+        if (!MessageBucket.isTimeOrdered(readUpTo)) {
+            return Mono.empty(); // can't tell what it covers
+        }
+        return redisTemplate.execute(READ_UP_TO, List.of(key(userId)), List.of(chatId.toString(), readUpTo.toString()))
+                .doOnNext(reset -> {
+                    if (reset > 0) dirty.add(userId);
+                })
+                .onErrorResume(err -> {
+                    log.warn("Failed to reset unread counter of user {} in chat {}: {}", userId, chatId, err.getMessage());
+                    return Mono.empty();
+                })
+                .then();
+    }
+
+    @Override
+    public Mono<Map<UUID, Long>> getUnreadCounts(UUID userId) {
+        return restoredHash(userId)
+                .map(UnreadCounterServiceImpl::toCounts)
+                .timeout(Duration.ofSeconds(3))
+                .onErrorResume(err ->
+                        Mono.error(new RuntimeException("Failed to fetch unread counts of user " + userId))
+                );
+    }
+
+    /** The user's hash, merged with the checkpoint first if it never was. */
+    private Mono<Map<String, String>> restoredHash(UUID userId) {
+        return entries(userId)
+                .flatMap(hash -> hash.containsKey(RESTORED)
+                        ? Mono.just(hash)
+                        : restore(userId).then(entries(userId)));
+    }
+
+    private Mono<Void> restore(UUID userId) {
+        return repository.findByUserId(userId)
+                .filter(row -> row.getCount() > 0)
+                .collectList()
+                .flatMap(rows -> {
+                    List<String> args = new ArrayList<>(rows.size() * 2);
+                    rows.forEach(row -> {
+                        args.add(row.getChatId().toString());
+                        args.add(String.valueOf(row.getCount()));
+                    });
+                    return redisTemplate.execute(MERGE_CHECKPOINT, List.of(key(userId)), args).then();
+                });
+    }
+
+    private Mono<Map<String, String>> entries(UUID userId) {
+        return redisTemplate.<String, String>opsForHash().entries(key(userId))
+                .collectMap(Map.Entry::getKey, Map.Entry::getValue);
+    }
+
+    /**
+     * Copies the Redis hash of every user touched since the last run into
+     * ScyllaDB: one UNLOGGED batch per user, all rows in that user's partition.
+     */
+    Mono<Void> checkpoint() {
+        if (dirty.isEmpty()) {
+            return Mono.empty();
+        }
+        List<UUID> users = List.copyOf(dirty);
+        users.forEach(dirty::remove);
+
+        return Flux.fromIterable(users)
+                .flatMap(userId -> restoredHash(userId)
+                        .flatMap(hash -> writeCheckpoint(userId, toCounts(hash)))
+                        .onErrorResume(err -> {
+                            log.warn("Failed to checkpoint unread counters of user {}: {}", userId, err.getMessage());
+                            dirty.add(userId);
+                            return Mono.empty();
+                        }), WRITE_CONCURRENCY)
+                .then();
+    }
+
+    private Mono<Void> writeCheckpoint(UUID userId, Map<UUID, Long> counts) {
+        // the hash is merged, so a known chat missing from it was read since the last
+        // checkpoint: written as zero instead of left stale
+        return repository.findByUserId(userId)
+                .map(UnreadCount::getChatId)
+                .collectList()
+                .flatMap(known -> {
+                    Set<UUID> chats = new LinkedHashSet<>(known);
+                    chats.addAll(counts.keySet());
+                    if (chats.isEmpty()) {
+                        return Mono.empty();
+                    }
+                    List<UnreadCount> rows = chats.stream()
+                            .map(chatId -> new UnreadCount(userId, chatId, counts.getOrDefault(chatId, 0L)))
+                            .toList();
+                    return operations.batchOps(BatchType.UNLOGGED).insert(rows).execute().then();
+                });
+    }
+
+    private Flux<UUID> recipients(UUID chatId) {
+        return groupService.getGroupById(chatId)
+                .flatMapMany(group -> {
+                    Set<UUID> users = new LinkedHashSet<>();
+                    if (group.members() != null) users.addAll(group.members());
+                    if (group.admin() != null) users.add(group.admin());
+                    return Flux.fromIterable(users);
+                })
+                .onErrorResume(err -> Flux.empty())
+                .switchIfEmpty(Flux.defer(() -> directService.getDirectById(chatId)
+                        .flatMapIterable(DirectDto::participants)
+                        .onErrorResume(err -> Flux.empty())));
+    }
+
+    private static Map<UUID, Long> toCounts(Map<String, String> hash) {
+        Map<UUID, Long> counts = new HashMap<>(hash.size());
+        hash.forEach((field, value) -> {
+            if (RESTORED.equals(field) || field.startsWith(LAST)) {
+                return;
+            }
+            try {
+                long count = Long.parseLong(value);
+                if (count > 0) {
+                    counts.put(UUID.fromString(field), count);
+                }
+            } catch (IllegalArgumentException e) {
+                log.warn("Ignoring malformed unread counter {}={}", field, value);
+            }
+        });
+        return counts;
+    }
+
+    private static String key(UUID userId) {
+        return KEY_PREFIX + userId;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (resets != null) resets.dispose();
+        if (checkpoints != null) checkpoints.dispose();
+        checkpoint().block(Duration.ofSeconds(5));
+    }
+}
@@ -8,7 +8,6 @@ import org.springframework.util.IdGenerator;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 
 import java.time.Clock;
-import java.util.UUID;
 
 @Configuration
 public class ApplicationConfig {
@@ -19,8 +18,8 @@ public class ApplicationConfig {
     }
 
     @Bean
-    public IdGenerator generator() {
-        return UUID::randomUUID;
+    public IdGenerator generator(Clock clock) {
+        return new TimeOrderedIdGenerator(clock);
     }
 
     @Bean
@@ -0,0 +1,29 @@
+package com.chatapp.chat_service.infrastructure.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.concurrent.Executors;
+
+/**
+ * Where blocking work goes instead of a Netty event loop: the blocking
+ * {@code RedisTemplate} / {@code RedisCacheManager}, parsing of large
+ * payloads and any synchronous client added later, always as
+ * {@code Mono.fromCallable(...).subscribeOn(blockingScheduler)}.
+ * <p>
+ * Each task gets its own virtual thread, so a slow call parks a cheap thread
+ * instead of holding one of boundedElastic's few platform threads; the
+ * resource behind the call (e.g. the Lettuce pool) is what bounds concurrency.
+ */
+@Configuration
+public class BlockingSchedulerConfig {
+
+    @Bean(destroyMethod = "dispose")
+    public Scheduler blockingScheduler() {
+        return Schedulers.fromExecutorService(
+                Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("blocking-", 0).factory()),
+                "blocking");
+    }
+}
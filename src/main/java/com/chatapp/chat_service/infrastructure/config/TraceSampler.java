@@ -0,0 +1,158 @@
+package com.chatapp.chat_service.infrastructure.config;
+
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationView;
+import io.micrometer.tracing.Tracer;
+import io.micrometer.tracing.handler.TracingObservationHandler;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.observation.ServerRequestObservationContext;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Head sampling in front of the tracer. It is registered as the first
+ * tracing handler and claims every observation that should not be traced,
+ * so the real tracing handlers never open a span for it, while meter
+ * handlers still see every observation and request metrics stay complete.
+ * <p>
+ * The decision is made once per trace: on the root observation by the
+ * longest matching rule and the per-second cap, and inherited by children.
+ * Requests that arrive with a sampled parent are always traced. Keeping
+ * whole traces by their outcome (tail sampling) needs every span buffered
+ * and is left to the collector.
+ */
+public class TraceSampler implements TracingObservationHandler<Observation.Context> {
+
+    private static final String DECISION = TraceSampler.class.getName() + ".sampled";
+
+    private record Rule(String prefix, double probability) {}
+
+    private final double probability;
+    private final List<Rule> rules;
+    private final RateLimit rateLimit;
+
+    public TraceSampler(double probability, int maxPerSecond, Map<String, Double> rules) {
+        this.probability = probability;
+        this.rules = rules.entrySet().stream()
+                .map(rule -> new Rule(rule.getKey(), rule.getValue()))
+                .sorted(Comparator.comparingInt((Rule rule) -> rule.prefix().length()).reversed())
+                .toList();
+        this.rateLimit = new RateLimit(maxPerSecond);
+    }
+
+    /** Claims, and so silences, the observations that are not sampled. */
+    @Override
+    public boolean supportsContext(Observation.Context context) {
+        return !isSampled(context);
+    }
+
+    boolean isSampled(Observation.Context context) {
+        Boolean decided = context.get(DECISION);
+        if (decided == null) {
+            decided = decide(context);
+            context.put(DECISION, decided);
+        }
+        return decided;
+    }
+
+    private boolean decide(Observation.Context context) {
+        ObservationView parent = context.getParentObservation();
+        if (parent != null) {
+            Boolean inherited = parent.getContextView().get(DECISION);
+            if (inherited != null) {
+                return inherited;
+            }
+        }
+        String subject = context.getName();
+        if (context instanceof ServerRequestObservationContext server) {
+            ServerHttpRequest request = server.getCarrier();
+            if (upstreamSampled(request)) {
+                return true;
+            }
+            subject = request.getPath().pathWithinApplication().value();
+        }
+        double chance = probabilityFor(subject);
+        if (chance <= 0 || (chance < 1 && ThreadLocalRandom.current().nextDouble() >= chance)) {
+            return false;
+        }
+        return rateLimit.tryAcquire();
+    }
+
+    private double probabilityFor(String subject) {
+        if (subject != null) {
+            for (Rule rule : rules) {
+                if (subject.startsWith(rule.prefix())) {
+                    return rule.probability();
+                }
+            }
+        }
+        return probability;
+    }
+
+    // W3C traceparent flags or B3, whichever the caller propagates
+    private static boolean upstreamSampled(ServerHttpRequest request) {
+        String traceparent = request.getHeaders().getFirst("traceparent");
+        if (traceparent != null) {
+            return traceparent.endsWith("-01");
+        }
+        String b3 = request.getHeaders().getFirst("b3");
+        if (b3 != null) {
+            // {traceId}-{spanId}-{sampling}-{parentSpanId}, or the sampling flag alone
+            String[] fields = b3.split("-");
+            String flag = fields.length == 1 ? fields[0] : fields.length > 2 ? fields[2] : "";
+            return flag.equals("1") || flag.equals("d");
+        }
+        return "1".equals(request.getHeaders().getFirst("X-B3-Sampled"));
+    }
+
+    @Override
+    public Tracer getTracer() {
+        return Tracer.NOOP;
+    }
+
+    // nothing to open or close for an observation that is not traced
+
+    @Override
+    public void onScopeOpened(Observation.Context context) {
+    }
+
+    @Override
+    public void onScopeClosed(Observation.Context context) {
+    }
+
+    @Override
+    public void onScopeReset(Observation.Context context) {
+    }
+
+    @Override
+    public void onEvent(Observation.Event event, Observation.Context context) {
+    }
+
+    /** Fixed one-second window; the window swap may let a few extra traces through, never fewer. */
+    static final class RateLimit {
+
+        private final int perSecond;
+        private final AtomicLong window = new AtomicLong();
+        private final AtomicLong taken = new AtomicLong();
+
+        RateLimit(int perSecond) {
+            this.perSecond = perSecond;
+        }
+
+        boolean tryAcquire() {
+            if (perSecond <= 0) {
+                return true;
+            }
+            long now = System.nanoTime() / 1_000_000_000L;
+            long current = window.get();
+            if (now != current && window.compareAndSet(current, now)) {
+                taken.set(0);
+            }
+            return taken.incrementAndGet() <= perSecond;
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.chatapp.chat_service.infrastructure.config;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+
+@Configuration
+@EnableConfigurationProperties(TraceSamplingProperties.class)
+public class TraceSamplingConfig {
+
+    // ahead of the tracer's own handlers, which only get what this one declines
+    @Bean
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public TraceSampler traceSampler(TraceSamplingProperties properties) {
+        return new TraceSampler(properties.probability(), properties.maxPerSecond(), properties.rules());
+    }
+}
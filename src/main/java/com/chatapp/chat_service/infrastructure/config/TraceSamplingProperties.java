@@ -0,0 +1,23 @@
+package com.chatapp.chat_service.infrastructure.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.Map;
+
+/**
+ * {@code chat.tracing.sampling.*}
+ *
+ * @param probability  share of new traces kept when no rule matches
+ * @param maxPerSecond cap on new traces per second across all rules, 0 for none
+ * @param rules        path prefix ({@code /api/v1/message}) or observation name
+ *                     prefix ({@code spring.data.redis}) -> probability; longest match wins
+ */
+@ConfigurationProperties("chat.tracing.sampling")
+public record TraceSamplingProperties(Double probability, Integer maxPerSecond, Map<String, Double> rules) {
+
+    public TraceSamplingProperties {
+        probability = probability == null ? 0.01 : probability;
+        maxPerSecond = maxPerSecond == null ? 100 : maxPerSecond;
+        rules = rules == null ? Map.of() : Map.copyOf(rules);
+    }
+}
@@ -9,6 +9,8 @@ import org.springframework.util.IdGenerator;
 
 import java.time.Clock;
 import java.time.Instant;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.UUID;
 
 @Component
@@ -24,7 +26,7 @@ public class GroupMapper {
                 dto.title() ,
                 dto.description(),
                 dto.admin(),
-                dto.members(),
+                dto.members() == null ? null : new LinkedHashSet<>(dto.members()),
                 clock.instant(),
                 clock.instant()
         );
@@ -36,7 +38,7 @@ public class GroupMapper {
                 group.getTitle(),
                 group.getDescription(),
                 group.getAdmin(),
-                group.getMembers(),
+                group.getMembers() == null ? null : List.copyOf(group.getMembers()),
                 group.getCreated_at(),
                 group.getUpdated_at()
         );
@@ -0,0 +1,86 @@
+package com.chatapp.chat_service.infrastructure.persistence.db;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@code chat.scylla.requests} timers, one per operation and outcome,
+ * registered up front so timing a call is a lookup by ordinal, not a tag build.
+ * A cancelled call (cut short by {@code take}, or abandoned by a caller's
+ * {@code timeout}) gets its own {@code cancel} outcome, so it neither hides
+ * a slow request among successes nor counts as a failure.
+ */
+@Component
+public class ScyllaMetrics {
+
+    public enum Operation {
+        MESSAGE_WRITE,
+        MESSAGE_GET,
+        MESSAGE_HISTORY,
+        MESSAGE_AFTER,
+        GROUP_READ,
+        GROUP_WRITE,
+        GROUP_MEMBERS,
+        GROUP_PAGE;
+
+        final String tag = name().toLowerCase(Locale.ROOT).replace('_', '.');
+    }
+
+    private final Timer[] success;
+    private final Timer[] error;
+    private final Timer[] cancelled;
+
+    public ScyllaMetrics(MeterRegistry meterRegistry) {
+        Operation[] operations = Operation.values();
+        success = new Timer[operations.length];
+        error = new Timer[operations.length];
+        cancelled = new Timer[operations.length];
+        for (Operation operation : operations) {
+            success[operation.ordinal()] = timer(meterRegistry, operation, "success");
+            error[operation.ordinal()] = timer(meterRegistry, operation, "error");
+            cancelled[operation.ordinal()] = timer(meterRegistry, operation, "cancel");
+        }
+    }
+
+    private static Timer timer(MeterRegistry meterRegistry, Operation operation, String outcome) {
+        return Timer.builder("chat.scylla.requests")
+                .description("ScyllaDB request latency by operation")
+                .tag("operation", operation.tag)
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    public <T> Mono<T> time(Operation operation, Mono<T> source) {
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            return source.doFinally(signal -> record(operation, signal, start));
+        });
+    }
+
+    public <T> Flux<T> time(Operation operation, Flux<T> source) {
+        return Flux.defer(() -> {
+            long start = System.nanoTime();
+            return source.doFinally(signal -> record(operation, signal, start));
+        });
+    }
+
+    public Timer timer(Operation operation, boolean failed) {
+        return (failed ? error : success)[operation.ordinal()];
+    }
+
+    public Timer cancelled(Operation operation) {
+        return cancelled[operation.ordinal()];
+    }
+
+    private void record(Operation operation, SignalType signal, long start) {
+        Timer timer = signal == SignalType.CANCEL ? cancelled(operation) : timer(operation, signal == SignalType.ON_ERROR);
+        timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+}
@@ -0,0 +1,13 @@
+package com.chatapp.chat_service.infrastructure.persistence.jpa;
+
+import com.chatapp.chat_service.api.dto.DirectDto;
+import reactor.core.publisher.Mono;
+
+import java.util.UUID;
+
+public interface DirectService {
+
+    Mono<DirectDto> getOrCreateDirect(UUID userId, UUID peerId);
+
+    Mono<DirectDto> getDirectById(UUID chatId);
+}
@@ -2,10 +2,12 @@ package com.chatapp.chat_service.infrastructure.persistence.jpa;
 
 import com.chatapp.chat_service.api.dto.CreateGroupDto;
 import com.chatapp.chat_service.api.dto.GroupDto;
+import com.chatapp.chat_service.api.dto.GroupPageDto;
 import com.chatapp.chat_service.domain.model.Group;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.Collection;
 import java.util.UUID;
 
 public interface GroupService {
@@ -14,8 +16,16 @@ public interface GroupService {
 
     Mono<GroupDto> getGroupById(UUID groupID);
 
-    Flux<GroupDto> getAllGroup(int page , int size);
+    Flux<GroupDto> getGroupsByIds(Collection<UUID> groupIDs);
+
+    Mono<GroupPageDto> getGroupPage(String cursor, int size);
+
+    Flux<GroupDto> exportAll();
 
     Mono<GroupDto> updateGroup(UUID groupID, CreateGroupDto dto);
 
+    Mono<Void> addMembers(UUID groupID, Collection<UUID> userIds);
+
+    Mono<Void> removeMembers(UUID groupID, Collection<UUID> userIds);
+
 }
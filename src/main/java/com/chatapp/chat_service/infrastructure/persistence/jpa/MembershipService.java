@@ -0,0 +1,17 @@
+package com.chatapp.chat_service.infrastructure.persistence.jpa;
+
+import com.chatapp.chat_service.domain.model.ChatType;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+import java.util.UUID;
+
+public interface MembershipService {
+
+    Flux<UUID> getChatIds(UUID userId);
+
+    Mono<Void> addMembers(UUID chatId, ChatType type, Collection<UUID> userIds);
+
+    Mono<Void> removeMembers(UUID chatId, Collection<UUID> userIds);
+}
@@ -10,10 +10,16 @@ public interface MessageService {
 
     Mono<Message> sendAMessage(Message message);
 
-    Mono<Message> getMessageByID(UUID messageID);
+    Mono<Message> getMessageByID(UUID chatID, UUID messageID);
 
     Flux<Message> getMessageByChatID(UUID chatID);
 
     Flux<Message> getRecentMessages(UUID chatID , int limit);
 
+    /** Newest first, strictly older than {@code before}; newest page of the chat when {@code before} is null. */
+    Flux<Message> getMessagesBefore(UUID chatID, UUID before, int limit);
+
+    /** Oldest first, strictly newer than {@code after}. */
+    Flux<Message> getMessagesAfter(UUID chatID, UUID after, int limit);
+
 }
@@ -0,0 +1,16 @@
+package com.chatapp.chat_service.infrastructure.persistence.jpa;
+
+import com.chatapp.chat_service.domain.model.Message;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+import java.util.UUID;
+
+public interface UnreadCounterService {
+
+    Mono<Void> onMessage(Message message);
+
+    Mono<Void> markRead(UUID userId, UUID chatId, UUID readUpTo);
+
+    Mono<Map<UUID, Long>> getUnreadCounts(UUID userId);
+}
@@ -0,0 +1,241 @@
+package com.chatapp.chat_service.infrastructure.persistence.redis;
+
+import com.chatapp.chat_service.domain.model.Group;
+import lombok.extern.slf4j.Slf4j;
+import net.jpountz.lz4.LZ4Compressor;
+import net.jpountz.lz4.LZ4Factory;
+import net.jpountz.lz4.LZ4SafeDecompressor;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Binary layout for cached groups. UUIDs are two longs (16 bytes instead of
+ * a 38 byte JSON string), so large member lists shrink by more than half.
+ * <pre>
+ * byte    version (1)
+ * byte    flags   (bit 0: body is LZ4 compressed)
+ * [int    uncompressed body length, only when compressed]
+ * body:   uuid groupID, string title, string description, uuid admin,
+ *         int memberCount (-1 = null) + memberCount uuids,
+ *         instant created_at, instant updated_at
+ * uuid    = byte present + 2 longs, string = int length (-1 = null) + UTF-8,
+ * instant = byte present + long seconds + int nanos
+ * </pre>
+ * Values that start with '{' are handed to the JSON fallback, so switching
+ * a cache from JSON to COMPACT does not turn existing entries into errors.
+ * <p>
+ * Bytes read back from Redis are not trusted: the declared body length and
+ * every count or length field are checked against what is actually there
+ * before anything is allocated, and LZ4 uses the bounds-checking decoder.
+ * A corrupt or foreign value reads as {@code null}, i.e. a cache miss.
+ */
+@Slf4j
+public class CompactGroupRedisSerializer implements RedisSerializer<Group> {
+
+    private static final byte VERSION = 1;
+    private static final byte FLAG_LZ4 = 1;
+    private static final int HEADER = 2;
+    private static final int COMPRESSED_HEADER = 6;
+    // far above any real group, far below a harmful allocation
+    private static final int MAX_BODY_BYTES = 16 * 1024 * 1024;
+    // LZ4 cannot expand input by more than ~255x
+    private static final int MAX_LZ4_RATIO = 255;
+    private static final int PRESENT_UUID_BYTES = 17;
+
+    private static final LZ4Compressor COMPRESSOR = LZ4Factory.fastestInstance().fastCompressor();
+    private static final LZ4SafeDecompressor DECOMPRESSOR = LZ4Factory.fastestInstance().safeDecompressor();
+
+    private final int compressionThreshold;
+    private final RedisSerializer<Group> jsonFallback;
+
+    public CompactGroupRedisSerializer(int compressionThreshold, RedisSerializer<Group> jsonFallback) {
+        this.compressionThreshold = compressionThreshold;
+        this.jsonFallback = jsonFallback;
+    }
+
+    @Override
+    public byte[] serialize(Group group) throws SerializationException {
+        if (group == null) {
+            return new byte[0];
+        }
+        try {
+            byte[] body = writeBody(group);
+            if (body.length < compressionThreshold) {
+                byte[] out = new byte[body.length + 2];
+                out[0] = VERSION;
+                out[1] = 0;
+                System.arraycopy(body, 0, out, 2, body.length);
+                return out;
+            }
+            byte[] out = new byte[6 + COMPRESSOR.maxCompressedLength(body.length)];
+            out[0] = VERSION;
+            out[1] = FLAG_LZ4;
+            writeInt(out, 2, body.length);
+            int compressed = COMPRESSOR.compress(body, 0, body.length, out, 6);
+            return Arrays.copyOf(out, 6 + compressed);
+        } catch (IOException e) {
+            throw new SerializationException("Could not write group " + group.getGroupID(), e);
+        }
+    }
+
+    @Override
+    public Group deserialize(byte[] bytes) throws SerializationException {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+        if (bytes[0] == '{') {
+            if (jsonFallback == null) {
+                return unreadable("JSON value but no JSON fallback configured");
+            }
+            return jsonFallback.deserialize(bytes);
+        }
+        if (bytes[0] != VERSION || bytes.length < HEADER) {
+            return unreadable("unsupported version " + bytes[0]);
+        }
+        try {
+            if ((bytes[1] & FLAG_LZ4) == 0) {
+                return readBody(bytes, HEADER, bytes.length - HEADER);
+            }
+            if (bytes.length <= COMPRESSED_HEADER) {
+                return unreadable("truncated header");
+            }
+            int compressed = bytes.length - COMPRESSED_HEADER;
+            int length = readInt(bytes, 2);
+            if (length < 0 || length > MAX_BODY_BYTES || (long) length > (long) compressed * MAX_LZ4_RATIO) {
+                return unreadable("implausible body length " + length);
+            }
+            byte[] body = new byte[length];
+            int decoded = DECOMPRESSOR.decompress(bytes, COMPRESSED_HEADER, compressed, body, 0, length);
+            if (decoded != length) {
+                return unreadable("body is " + decoded + " bytes, header says " + length);
+            }
+            return readBody(body, 0, length);
+        } catch (IOException | RuntimeException e) {
+            return unreadable(e.toString());
+        }
+    }
+
+    private static Group unreadable(String reason) {
+        log.warn("Ignoring unreadable cached group ({})", reason);
+        return null;
+    }
+
+    private static byte[] writeBody(Group group) throws IOException {
+        Set<UUID> members = group.getMembers();
+        int estimate = 64 + (members != null ? members.size() * 17 : 0);
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(estimate);
+        DataOutputStream out = new DataOutputStream(buffer);
+
+        writeUuid(out, group.getGroupID());
+        writeString(out, group.getTitle());
+        writeString(out, group.getDescription());
+        writeUuid(out, group.getAdmin());
+        if (members == null) {
+            out.writeInt(-1);
+        } else {
+            out.writeInt(members.size());
+            for (UUID member : members) {
+                writeUuid(out, member);
+            }
+        }
+        writeInstant(out, group.getCreated_at());
+        writeInstant(out, group.getUpdated_at());
+        return buffer.toByteArray();
+    }
+
+    private static Group readBody(byte[] bytes, int offset, int length) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes, offset, length));
+
+        UUID groupID = readUuid(in);
+        String title = readString(in);
+        String description = readString(in);
+        UUID admin = readUuid(in);
+        int count = in.readInt();
+        if (count < -1 || count > in.available() / PRESENT_UUID_BYTES) {
+            throw new IOException("Member count " + count + " exceeds the remaining " + in.available() + " bytes");
+        }
+        Set<UUID> members = null;
+        if (count >= 0) {
+            members = LinkedHashSet.newLinkedHashSet(count);
+            for (int i = 0; i < count; i++) {
+                members.add(readUuid(in));
+            }
+        }
+        Instant createdAt = readInstant(in);
+        Instant updatedAt = readInstant(in);
+        return new Group(groupID, title, description, admin, members, createdAt, updatedAt);
+    }
+
+    private static void writeUuid(DataOutputStream out, UUID id) throws IOException {
+        out.writeBoolean(id != null);
+        if (id != null) {
+            out.writeLong(id.getMostSignificantBits());
+            out.writeLong(id.getLeastSignificantBits());
+        }
+    }
+
+    private static UUID readUuid(DataInputStream in) throws IOException {
+        return in.readBoolean() ? new UUID(in.readLong(), in.readLong()) : null;
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(utf8.length);
+        out.write(utf8);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        if (length > in.available()) {
+            throw new IOException("String length " + length + " exceeds the remaining " + in.available() + " bytes");
+        }
+        byte[] utf8 = new byte[length];
+        in.readFully(utf8);
+        return new String(utf8, StandardCharsets.UTF_8);
+    }
+
+    private static void writeInstant(DataOutputStream out, Instant value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeLong(value.getEpochSecond());
+            out.writeInt(value.getNano());
+        }
+    }
+
+    private static Instant readInstant(DataInputStream in) throws IOException {
+        return in.readBoolean() ? Instant.ofEpochSecond(in.readLong(), in.readInt()) : null;
+    }
+
+    private static void writeInt(byte[] target, int offset, int value) {
+        target[offset] = (byte) (value >>> 24);
+        target[offset + 1] = (byte) (value >>> 16);
+        target[offset + 2] = (byte) (value >>> 8);
+        target[offset + 3] = (byte) value;
+    }
+
+    private static int readInt(byte[] source, int offset) {
+        return ((source[offset] & 0xFF) << 24)
+                | ((source[offset + 1] & 0xFF) << 16)
+                | ((source[offset + 2] & 0xFF) << 8)
+                | (source[offset + 3] & 0xFF);
+    }
+}
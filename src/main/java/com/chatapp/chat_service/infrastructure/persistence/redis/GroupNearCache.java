@@ -0,0 +1,111 @@
+package com.chatapp.chat_service.infrastructure.persistence.redis;
+
+import com.chatapp.chat_service.domain.model.Group;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.ReactiveSubscription;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.ReactiveRedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+import java.util.UUID;
+
+/**
+ * In-process L1 in front of {@link GroupRedisService}: a size-bounded
+ * W-TinyLFU cache with a short TTL. Writes on any node publish an
+ * invalidation on Redis; the TTL bounds staleness if one is missed.
+ * A dropped invalidation subscription is re-established with backoff, and
+ * the whole cache is cleared on each attempt, since invalidations sent
+ * while it was down are lost.
+ */
+@Slf4j
+@Component
+public class GroupNearCache {
+
+    private static final String INVALIDATION_CHANNEL = "group:invalidate";
+    private static final char SEPARATOR = ':';
+
+    private final Cache<UUID, Group> cache;
+    private final ReactiveStringRedisTemplate redisTemplate;
+    private final String nodeId = UUID.randomUUID().toString();
+    private final Disposable subscription;
+
+    public GroupNearCache(
+            ReactiveStringRedisTemplate redisTemplate,
+            ReactiveRedisMessageListenerContainer listenerContainer,
+            MeterRegistry meterRegistry,
+            @Value("${chat.cache.group.near.max-size:10000}") long maxSize,
+            @Value("${chat.cache.group.near.ttl:30s}") Duration ttl,
+            @Value("${chat.cache.group.near.resubscribe-backoff:1s}") Duration resubscribeBackoff
+    ) {
+        this.redisTemplate = redisTemplate;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "group.near");
+
+        this.subscription = Flux.defer(() -> listenerContainer.receive(ChannelTopic.of(INVALIDATION_CHANNEL)))
+                .map(ReactiveSubscription.Message::getMessage)
+                .retryWhen(Retry.backoff(Long.MAX_VALUE, resubscribeBackoff)
+                        .maxBackoff(Duration.ofMinutes(1))
+                        .transientErrors(true)
+                        .doBeforeRetry(signal -> {
+                            cache.invalidateAll();
+                            log.warn("Group invalidation subscription failed, re-subscribing: {}",
+                                    signal.failure().getMessage());
+                        }))
+                .subscribe(this::onInvalidation,
+                        err -> log.error("Group invalidation subscription gave up", err));
+    }
+
+    public Group get(UUID groupID) {
+        return cache.getIfPresent(groupID);
+    }
+
+    public void put(Group group) {
+        cache.put(group.getGroupID(), group);
+    }
+
+    /**
+     * Drops the local entry and tells the other nodes to drop theirs.
+     */
+    public Mono<Void> invalidate(UUID groupID) {
+        cache.invalidate(groupID);
+        return redisTemplate.convertAndSend(INVALIDATION_CHANNEL, nodeId + SEPARATOR + groupID)
+                .onErrorResume(err -> {
+                    log.warn("Failed to broadcast invalidation of group {}: {}", groupID, err.getMessage());
+                    return Mono.empty();
+                })
+                .then();
+    }
+
+    private void onInvalidation(String message) {
+        int split = message.lastIndexOf(SEPARATOR);
+        if (split < 0 || message.startsWith(nodeId)) {
+            return;
+        }
+        try {
+            cache.invalidate(UUID.fromString(message.substring(split + 1)));
+        } catch (IllegalArgumentException e) {
+            log.warn("Ignoring malformed group invalidation: {}", message);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        subscription.dispose();
+    }
+}
@@ -9,6 +9,7 @@ import tools.jackson.databind.json.JsonMapper;
 import tools.jackson.databind.cfg.DateTimeFeature;
 import io.lettuce.core.resource.ClientResources;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.data.redis.autoconfigure.DataRedisProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -24,6 +25,8 @@ import org.springframework.data.redis.connection.lettuce.LettuceClientConfigurat
 import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
 
 import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.listener.ReactiveRedisMessageListenerContainer;
 
 import java.time.Duration;
 import java.util.Map;
@@ -84,14 +87,27 @@ public class GroupRedisConfig {
         return template;
     }
 
+    @Bean
+    public RedisSerializer<Group> groupValueSerializer(
+            ObjectMapper mapper,
+            @Value("${chat.cache.group.codec:JSON}") RedisValueCodec codec,
+            @Value("${chat.cache.group.compression-threshold:1024}") int compressionThreshold
+    ) {
+        RedisSerializer<Group> json = new JacksonJsonRedisSerializer<>(mapper , Group.class);
+        return switch (codec) {
+            case JSON -> json;
+            case COMPACT -> new CompactGroupRedisSerializer(compressionThreshold, json);
+        };
+    }
+
     @Bean
     public ReactiveRedisTemplate<String , Group> reactiveRedisTemplate(
             ReactiveRedisConnectionFactory connectionFactory ,
-            ObjectMapper mapper
+            RedisSerializer<Group> groupValueSerializer
     ) {
 
         RedisSerializer<String> keySer = new StringRedisSerializer();
-        RedisSerializer<Group> valueSer = new JacksonJsonRedisSerializer<>(mapper , Group.class);
+        RedisSerializer<Group> valueSer = groupValueSerializer;
 
         var keyPair = RedisSerializationContext.SerializationPair.fromSerializer(keySer);
         var valuePair = RedisSerializationContext.SerializationPair.fromSerializer(valueSer);
@@ -108,6 +124,21 @@ public class GroupRedisConfig {
 
     }
 
+    @Bean
+    public ReactiveStringRedisTemplate reactiveStringRedisTemplate(
+            ReactiveRedisConnectionFactory connectionFactory
+    ) {
+        return new ReactiveStringRedisTemplate(connectionFactory);
+    }
+
+    // Shares one pub/sub connection between all chat channel subscriptions
+    @Bean(destroyMethod = "destroy")
+    public ReactiveRedisMessageListenerContainer redisMessageListenerContainer(
+            ReactiveRedisConnectionFactory connectionFactory
+    ) {
+        return new ReactiveRedisMessageListenerContainer(connectionFactory);
+    }
+
     @Bean
     public RedisCacheManager cacheManager(
             RedisConnectionFactory connectionFactory
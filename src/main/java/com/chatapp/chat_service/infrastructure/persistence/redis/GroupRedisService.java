@@ -1,25 +1,60 @@
 package com.chatapp.chat_service.infrastructure.persistence.redis;
 
 import com.chatapp.chat_service.domain.model.Group;
-import lombok.AllArgsConstructor;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.ReactiveStringCommands;
 import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.core.types.Expiration;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.time.Duration;
+import java.util.Collection;
 import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
 
 @Slf4j
 @Service
-@AllArgsConstructor
 public class GroupRedisService {
 
     private final ReactiveRedisTemplate<String, Group> redisTemplate;
     private static final Duration GROUP_TTL  = Duration.ofMinutes(30);
     private static final String GROUP_PREFIX = "group:";
 
+    /** A cache hit plus whether this reader should refresh the entry before it expires. */
+    public record CachedGroup(Group group, boolean refreshEarly) {}
+
+    private final Duration refreshDelta;
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter errors;
+    private final Counter writeErrors;
+    private final Timer readLatency;
+
+    public GroupRedisService(
+            ReactiveRedisTemplate<String, Group> redisTemplate,
+            MeterRegistry meterRegistry,
+            @Value("${chat.cache.group.refresh-delta:500ms}") Duration refreshDelta
+    ) {
+        this.redisTemplate = redisTemplate;
+        this.refreshDelta = refreshDelta;
+        this.hits = Counter.builder("group.redis.gets").tag("result", "hit").register(meterRegistry);
+        this.misses = Counter.builder("group.redis.gets").tag("result", "miss").register(meterRegistry);
+        this.errors = Counter.builder("group.redis.gets").tag("result", "error").register(meterRegistry);
+        this.writeErrors = Counter.builder("group.redis.write.errors")
+                .description("Failed cache writes, evictions and deletes; callers fall back to ScyllaDB")
+                .register(meterRegistry);
+        this.readLatency = Timer.builder("group.redis.get.latency").register(meterRegistry);
+    }
+
     public Mono<Group> saveGroup(Group group) {
         String key = GROUP_PREFIX + group.getGroupID();
         return redisTemplate.opsForValue()
@@ -27,6 +62,7 @@ public class GroupRedisService {
                 .thenReturn(group)
                 .doOnSuccess(g -> log.debug("Cached group : {} " , g.getGroupID()))
                 .onErrorResume(err -> {
+                    writeErrors.increment();
                     log.warn("Redis cache write failed for group {}: {}",
                             group.getGroupID(), err.getMessage());
                     return Mono.just(group);
@@ -35,12 +71,49 @@ public class GroupRedisService {
 
     public Mono<Group> getGroupById(String groupID) {
         String key = GROUP_PREFIX + groupID;
-        return redisTemplate.opsForValue().get(key)
-                .doOnSuccess(group -> log.debug("Data retrieved successfully"))
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            return redisTemplate.opsForValue().get(key)
+                    .doOnSuccess(group -> (group != null ? hits : misses).increment())
+                    .onErrorResume(err -> {
+                        errors.increment();
+                        log.error("Error retrieving data from redis {}", err.getMessage());
+                        return Mono.empty();
+                    })
+                    .doFinally(signal -> readLatency.record(System.nanoTime() - start, TimeUnit.NANOSECONDS));
+        });
+    }
+
+    /**
+     * GET plus TTL of the entry (pipelined on the shared connection). The
+     * refresh hint follows XFetch: the closer the entry is to expiry, the
+     * more likely a reader is asked to reload it, so a hot key is refreshed
+     * by roughly one reader before it expires instead of by a herd after.
+     */
+    public Mono<CachedGroup> getGroupWithRefreshHint(String groupID) {
+        String key = GROUP_PREFIX + groupID;
+        return getGroupById(groupID)
+                .zipWith(redisTemplate.getExpire(key).onErrorReturn(GROUP_TTL).defaultIfEmpty(GROUP_TTL))
+                .map(hit -> new CachedGroup(hit.getT1(), shouldRefreshEarly(hit.getT2(), refreshDelta, 1.0)));
+    }
+
+    static boolean shouldRefreshEarly(Duration remaining, Duration delta, double beta) {
+        if (remaining.isNegative()) {
+            return false; // no TTL on the key
+        }
+        double gap = delta.toMillis() * beta * -Math.log(ThreadLocalRandom.current().nextDouble());
+        return gap >= remaining.toMillis();
+    }
+
+    /** Drops the cached entry so the next read reloads it; unlike deleteGroup it does not read back. */
+    public Mono<Void> evictGroup(UUID groupID) {
+        return redisTemplate.delete(GROUP_PREFIX + groupID)
                 .onErrorResume(err -> {
-                    log.error("Error retrieving data from redis {}", err.getMessage());
+                    writeErrors.increment();
+                    log.warn("Failed to evict group {} from redis: {}", groupID, err.getMessage());
                     return Mono.empty();
-                });
+                })
+                .then();
     }
 
     public Mono<Group> deleteGroup(String groupID) {
@@ -48,14 +121,63 @@ public class GroupRedisService {
         return redisTemplate.opsForValue().delete(key)
                 .doOnSuccess(msg -> log.debug("Data deleted successfully"))
                 .onErrorResume(err -> {
+                    writeErrors.increment();
                     log.error("Error deleting data from redis {}", err.getMessage());
                     return Mono.empty();
                 })
                 .then(getGroupById(groupID));
     }
 
+    /**
+     * One MGET for all keys; only hits are emitted, in no particular order.
+     */
+    public Flux<Group> getGroupsByIds(Collection<UUID> groupIDs) {
+        if (groupIDs.isEmpty()) {
+            return Flux.empty();
+        }
+        List<String> keys = groupIDs.stream().map(id -> GROUP_PREFIX + id).toList();
+        return redisTemplate.opsForValue().multiGet(keys)
+                .flatMapMany(values -> {
+                    List<Group> found = values.stream().filter(Objects::nonNull).toList();
+                    hits.increment(found.size());
+                    misses.increment(keys.size() - found.size());
+                    return Flux.fromIterable(found);
+                })
+                .onErrorResume(err -> {
+                    errors.increment();
+                    log.error("Error retrieving groups from redis {}", err.getMessage());
+                    return Flux.empty();
+                });
+    }
+
+    /**
+     * Pipelined SET .. EX for every group over one connection. Plain MSET
+     * cannot carry a TTL, so the batch is sent as a stream of SET commands
+     * instead, which Lettuce writes without waiting for each reply.
+     */
     public Flux<Group> saveAll(List<Group> groups) {
-        return Flux.fromIterable(groups)
-                .flatMap(this::saveGroup , 8);
+        if (groups.isEmpty()) {
+            return Flux.empty();
+        }
+        var context = redisTemplate.getSerializationContext();
+        Expiration ttl = Expiration.from(GROUP_TTL);
+
+        return redisTemplate.execute(connection -> connection.stringCommands().set(
+                        Flux.fromIterable(groups).map(group -> ReactiveStringCommands.SetCommand
+                                .set(context.getKeySerializationPair().write(GROUP_PREFIX + group.getGroupID()))
+                                .value(context.getValueSerializationPair().write(group))
+                                .expiring(ttl))
+                ))
+                .thenMany(Flux.fromIterable(groups))
+                .doOnComplete(() -> {
+                    if (log.isDebugEnabled()) {
+                        log.debug("Cached {} groups", groups.size());
+                    }
+                })
+                .onErrorResume(err -> {
+                    writeErrors.increment();
+                    log.warn("Redis bulk cache write failed for {} groups: {}", groups.size(), err.getMessage());
+                    return Flux.fromIterable(groups);
+                });
     }
 }
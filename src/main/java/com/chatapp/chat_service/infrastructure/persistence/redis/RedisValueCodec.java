@@ -0,0 +1,13 @@
+package com.chatapp.chat_service.infrastructure.persistence.redis;
+
+/**
+ * Wire format of cached values, chosen per cache with {@code chat.cache.<cache>.codec}.
+ */
+public enum RedisValueCodec {
+
+    /** Jackson JSON, readable with redis-cli. */
+    JSON,
+
+    /** {@link CompactGroupRedisSerializer}: versioned binary, LZ4 above a size threshold. */
+    COMPACT
+}
@@ -0,0 +1,117 @@
+package com.chatapp.chat_service.api.api;
+
+import com.chatapp.chat_service.domain.model.Message;
+import com.chatapp.chat_service.infrastructure.config.TimeOrderedIdGenerator;
+import com.chatapp.chat_service.infrastructure.persistence.jpa.MessageService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Flux;
+
+import java.time.Clock;
+import java.util.UUID;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Message history endpoint")
+class MessageControllerTest {
+
+    @Mock
+    MessageService service;
+
+    private WebTestClient client;
+    private final UUID chatId = UUID.randomUUID();
+    private final TimeOrderedIdGenerator ids = new TimeOrderedIdGenerator(Clock.systemUTC());
+
+    @BeforeEach
+    void setUp() {
+        client = WebTestClient.bindToController(new MessageController(service))
+                .controllerAdvice(new ApiExceptionHandler())
+                .build();
+    }
+
+    @Test
+    void full_page_returns_last_id_as_next_cursor() {
+        Message newest = message();
+        Message oldest = message();
+        when(service.getMessagesBefore(chatId, null, 2)).thenReturn(Flux.just(newest, oldest));
+
+        client.get().uri("/api/v1/chat/{chatId}/messages?limit=2", chatId)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.messages.length()").isEqualTo(2)
+                .jsonPath("$.nextCursor").isEqualTo(oldest.getMessageID().toString());
+    }
+
+    @Test
+    void after_cursor_reads_forward() {
+        UUID after = ids.generateId();
+        when(service.getMessagesAfter(chatId, after, 50)).thenReturn(Flux.empty());
+
+        client.get().uri("/api/v1/chat/{chatId}/messages?after={after}", chatId, after)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.nextCursor").doesNotExist();
+    }
+
+    @Test
+    @DisplayName("A cursor that is not a UUID is a 400")
+    void unparsable_cursor_is_bad_request() {
+        client.get().uri("/api/v1/chat/{chatId}/messages?before=not-a-uuid", chatId)
+                .exchange()
+                .expectStatus().isBadRequest();
+        verifyNoInteractions(service);
+    }
+
+    @Test
+    @DisplayName("A cursor the service rejects (not a message id) is a 400, not a 500")
+    void rejected_cursor_is_bad_request() {
+        UUID random = UUID.randomUUID();
+        when(service.getMessagesBefore(eq(chatId), eq(random), anyInt()))
+                .thenReturn(Flux.error(new IllegalArgumentException("Cursor 'before' is not a message id")));
+
+        client.get().uri("/api/v1/chat/{chatId}/messages?before={before}", chatId, random)
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody()
+                .jsonPath("$.detail").isEqualTo("Cursor 'before' is not a message id");
+    }
+
+    @Test
+    void limit_out_of_range_is_bad_request() {
+        when(service.getMessagesBefore(eq(chatId), isNull(), eq(5000)))
+                .thenReturn(Flux.error(new IllegalArgumentException("Limit 1 .. 1000")));
+
+        client.get().uri("/api/v1/chat/{chatId}/messages?limit=5000", chatId)
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+
+    @Test
+    void both_cursors_is_bad_request() {
+        client.get().uri("/api/v1/chat/{chatId}/messages?before={before}&after={after}",
+                        chatId, ids.generateId(), ids.generateId())
+                .exchange()
+                .expectStatus().isBadRequest();
+        verify(service, never()).getMessagesBefore(any(), any(), anyInt());
+        verify(service, never()).getMessagesAfter(any(), any(), anyInt());
+    }
+
+    private Message message() {
+        Message message = new Message();
+        message.setChatId(chatId);
+        message.setMessageID(ids.generateId());
+        return message;
+    }
+}
@@ -0,0 +1,151 @@
+package com.chatapp.chat_service.api.socketApi;
+
+import com.chatapp.chat_service.domain.service.RecentMessageBuffer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.redis.testcontainers.RedisContainer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.SynchronizedHistogram;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.listener.ReactiveRedisMessageListenerContainer;
+import org.springframework.util.unit.DataSize;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.utility.DockerImageName;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+/**
+ * Two chat-service "nodes" sharing one Redis: a message published on node A
+ * must reach a session connected to node B exactly once, and the
+ * publish-to-receive latency distribution is reported.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+@DisplayName("Cluster fan-out through Redis pub/sub")
+class ChatFanoutRedisTest {
+
+    private static final Logger log = LoggerFactory.getLogger(ChatFanoutRedisTest.class);
+
+    @Container
+    static RedisContainer redis = new RedisContainer(DockerImageName.parse("redis:7-alpine"));
+
+    private LettuceConnectionFactory factoryA;
+    private LettuceConnectionFactory factoryB;
+    private ReactiveRedisMessageListenerContainer containerA;
+    private ReactiveRedisMessageListenerContainer containerB;
+    private ChatFanout nodeA;
+    private ChatFanout nodeB;
+
+    @BeforeEach
+    void setUp() {
+        factoryA = connectionFactory();
+        factoryB = connectionFactory();
+        containerA = new ReactiveRedisMessageListenerContainer(factoryA);
+        containerB = new ReactiveRedisMessageListenerContainer(factoryB);
+        nodeA = new ChatFanout(new ChatRoomRegistry(), new ReactiveStringRedisTemplate(factoryA), containerA,
+                new RecentMessageBuffer(new SimpleMeterRegistry(), 16, DataSize.ofMegabytes(1), Duration.ofMinutes(1)), new ObjectMapper());
+        nodeB = new ChatFanout(new ChatRoomRegistry(), new ReactiveStringRedisTemplate(factoryB), containerB,
+                new RecentMessageBuffer(new SimpleMeterRegistry(), 16, DataSize.ofMegabytes(1), Duration.ofMinutes(1)), new ObjectMapper());
+    }
+
+    @AfterEach
+    void tearDown() {
+        nodeA.shutdown();
+        nodeB.shutdown();
+        containerA.destroy();
+        containerB.destroy();
+        factoryA.destroy();
+        factoryB.destroy();
+    }
+
+    @Test
+    void message_reaches_other_node_once_and_reports_latency() {
+        int messages = 2_000;
+        UUID chatId = UUID.randomUUID();
+        ChatSession remote = new ChatSession("b-1", UUID.randomUUID());
+        ChatSession local = new ChatSession("a-1", UUID.randomUUID());
+        nodeB.join(chatId, remote);
+        nodeA.join(chatId, local);
+        assertThat(nodeB.isSubscribed(chatId)).isTrue();
+        // both nodes' SUBSCRIBE must reach Redis before anything is published
+        await().atMost(Duration.ofSeconds(5)).until(() -> subscribers("chat:" + chatId) == 2);
+
+        // publish-to-receive latency per frame, microseconds
+        Histogram latency = new SynchronizedHistogram(TimeUnit.SECONDS.toMicros(10), 3);
+        CopyOnWriteArrayList<String> remoteFrames = new CopyOnWriteArrayList<>();
+        remote.outbound().subscribe(frame -> {
+            String[] seqAndSentAt = new String(frame, StandardCharsets.UTF_8).split(":");
+            latency.recordValue(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - Long.parseLong(seqAndSentAt[1])));
+            remoteFrames.add(seqAndSentAt[0]);
+        });
+        CopyOnWriteArrayList<byte[]> localFrames = new CopyOnWriteArrayList<>();
+        local.outbound().subscribe(localFrames::add);
+
+        for (int i = 0; i < messages; i++) {
+            nodeA.publish(chatId, (i + ":" + System.nanoTime()).getBytes(StandardCharsets.UTF_8)).block(Duration.ofSeconds(2));
+        }
+
+        await().atMost(Duration.ofSeconds(10)).until(() -> remoteFrames.size() == messages);
+        // no duplicates on node B, and node A delivers locally once and ignores its own echo from Redis
+        await().during(Duration.ofMillis(200)).atMost(Duration.ofSeconds(1))
+                .until(() -> remoteFrames.size() == messages && localFrames.size() == messages);
+        assertThat(remoteFrames)
+                .containsExactlyElementsOf(IntStream.range(0, messages).mapToObj(Integer::toString).toList());
+
+        log.info("cross-node delivery over {} msgs: p50={}us p99={}us p999={}us max={}us",
+                latency.getTotalCount(), latency.getValueAtPercentile(50), latency.getValueAtPercentile(99),
+                latency.getValueAtPercentile(99.9), latency.getMaxValue());
+        assertThat(latency.getTotalCount()).isEqualTo(messages);
+        // generous, so only a real regression (not a slow CI box) trips it
+        assertThat(latency.getValueAtPercentile(99)).isLessThan(TimeUnit.MILLISECONDS.toMicros(500));
+    }
+
+    @Test
+    void node_unsubscribes_when_last_listener_leaves() {
+        UUID chatId = UUID.randomUUID();
+        ChatSession session = new ChatSession("b-1", UUID.randomUUID());
+
+        nodeB.join(chatId, session);
+        assertThat(nodeB.isSubscribed(chatId)).isTrue();
+
+        nodeB.leaveAll(session);
+        assertThat(nodeB.isSubscribed(chatId)).isFalse();
+    }
+
+    private long subscribers(String channel) {
+        try (RedisConnection connection = factoryA.getConnection()) {
+            List<?> reply = (List<?>) connection.execute("PUBSUB", bytes("NUMSUB"), bytes(channel));
+            return reply == null ? 0 : (Long) reply.get(1);
+        }
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static LettuceConnectionFactory connectionFactory() {
+        var factory = new LettuceConnectionFactory(
+                new RedisStandaloneConfiguration(redis.getHost(), redis.getFirstMappedPort()));
+        factory.afterPropertiesSet();
+        factory.start();
+        return factory;
+    }
+}
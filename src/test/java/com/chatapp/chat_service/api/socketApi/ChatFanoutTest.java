@@ -0,0 +1,113 @@
+package com.chatapp.chat_service.api.socketApi;
+
+import com.chatapp.chat_service.domain.service.RecentMessageBuffer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.ReactiveRedisMessageListenerContainer;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.unit.DataSize;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@DisplayName("Fan-out envelope format")
+class ChatFanoutTest {
+
+    private final UUID chatId = UUID.randomUUID();
+    private ChatRoomRegistry rooms;
+    private ChatFanout fanout;
+
+    @BeforeEach
+    void setUp() {
+        rooms = new ChatRoomRegistry();
+        fanout = fanout(rooms);
+    }
+
+    @Test
+    void v2_envelope_round_trips_between_nodes() {
+        UUID messageId = UUID.randomUUID();
+        String json = "{\"chatId\":\"" + chatId + "\",\"messageID\":\"" + messageId + "\"}";
+        ChatSession session = join();
+
+        fanout.onRemote(chatId, fanout(new ChatRoomRegistry()).envelope(messageId, bytes(json)));
+        session.close();
+
+        StepVerifier.create(session.outbound().map(String::new))
+                .expectNext(json)
+                .verifyComplete();
+    }
+
+    @Test
+    void unversioned_envelope_of_older_nodes_is_accepted() {
+        ChatSession session = join();
+
+        fanout.onRemote(chatId, UUID.randomUUID() + "\nhello");
+        session.close();
+
+        StepVerifier.create(session.outbound().map(String::new))
+                .expectNext("hello")
+                .verifyComplete();
+    }
+
+    @Test
+    void own_envelopes_are_ignored_in_both_formats() {
+        ChatSession session = join();
+
+        fanout.onRemote(chatId, fanout.envelope(UUID.randomUUID(), bytes("v2")));
+        ReflectionTestUtils.setField(fanout, "envelopeVersion", "v1");
+        String v1 = fanout.envelope(UUID.randomUUID(), bytes("v1"));
+        fanout.onRemote(chatId, v1);
+        session.close();
+
+        assertThat(v1).doesNotStartWith("v2\n");
+        StepVerifier.create(session.outbound())
+                .verifyComplete();
+    }
+
+    @Test
+    void failed_subscription_is_re_established() {
+        ReactiveRedisMessageListenerContainer container = mock(ReactiveRedisMessageListenerContainer.class);
+        when(container.receive(any(ChannelTopic.class)))
+                .thenReturn(Flux.error(new RedisConnectionFailureException("connection reset")), Flux.never());
+        ChatFanout node = new ChatFanout(new ChatRoomRegistry(), mock(ReactiveStringRedisTemplate.class), container,
+                new RecentMessageBuffer(new SimpleMeterRegistry(), 16, DataSize.ofMegabytes(1), Duration.ofMinutes(1)),
+                new ObjectMapper());
+        ReflectionTestUtils.setField(node, "resubscribeBackoff", Duration.ofMillis(1));
+
+        node.join(chatId, new ChatSession("1", UUID.randomUUID()));
+
+        verify(container, timeout(1_000).times(2)).receive(any(ChannelTopic.class));
+        assertThat(node.isSubscribed(chatId)).isTrue();
+        node.shutdown();
+    }
+
+    private ChatSession join() {
+        ChatSession session = new ChatSession("1", UUID.randomUUID());
+        rooms.join(chatId, session);
+        return session;
+    }
+
+    private static ChatFanout fanout(ChatRoomRegistry rooms) {
+        return new ChatFanout(rooms, mock(ReactiveStringRedisTemplate.class),
+                mock(ReactiveRedisMessageListenerContainer.class),
+                new RecentMessageBuffer(new SimpleMeterRegistry(), 16, DataSize.ofMegabytes(1), Duration.ofMinutes(1)),
+                new ObjectMapper());
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
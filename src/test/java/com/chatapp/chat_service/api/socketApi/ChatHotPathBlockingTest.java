@@ -0,0 +1,109 @@
+package com.chatapp.chat_service.api.socketApi;
+
+import com.chatapp.chat_service.domain.model.Message;
+import com.chatapp.chat_service.infrastructure.config.ApplicationConfig;
+import com.chatapp.chat_service.infrastructure.config.BlockingSchedulerConfig;
+import com.chatapp.chat_service.infrastructure.config.TimeOrderedIdGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import reactor.blockhound.BlockHound;
+import reactor.blockhound.BlockingOperationError;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+import reactor.test.StepVerifier;
+
+import java.time.Clock;
+import java.util.UUID;
+
+/**
+ * Runs under BlockHound ({@code ./gradlew blockHoundTest}, part of {@code check}):
+ * Reactor's parallel threads are flagged non-blocking the same way Netty's
+ * event loops are, so any blocking call on them fails the test.
+ */
+@Tag("blockhound")
+class ChatHotPathBlockingTest {
+
+    private static final Scheduler blocking = new BlockingSchedulerConfig().blockingScheduler();
+
+    private final ObjectMapper objectMapper = new ApplicationConfig().objectMapper();
+    private final ChatWebSocketHandler handler = new ChatWebSocketHandler(objectMapper, null, null, null, null, null,
+            new TimeOrderedIdGenerator(Clock.systemUTC()), null, null,
+            new ChatSocketMetrics(new SimpleMeterRegistry()), blocking);
+
+    @BeforeAll
+    static void installBlockHound() {
+        // first use loads classes from disk, which is not what is under test
+        new ChatHotPathBlockingTest().inbound_to_outbound_does_not_block();
+        BlockHound.install();
+    }
+
+    @AfterAll
+    static void disposeScheduler() {
+        blocking.dispose();
+    }
+
+    @Test
+    @DisplayName("The detector is live: sleeping on a non-blocking thread fails")
+    void detects_blocking_on_event_loop() {
+        StepVerifier.create(Mono.fromCallable(ChatHotPathBlockingTest::blockingCall)
+                        .subscribeOn(Schedulers.parallel()))
+                .verifyError(BlockingOperationError.class);
+    }
+
+    @Test
+    @DisplayName("Blocking calls moved to the virtual-thread scheduler pass")
+    void blocking_scheduler_is_allowed() {
+        StepVerifier.create(Mono.fromCallable(ChatHotPathBlockingTest::blockingCall)
+                        .subscribeOn(blocking)
+                        .subscribeOn(Schedulers.parallel()))
+                .expectNext("done")
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("Parse, fan-out and outbound queueing never block")
+    void inbound_to_outbound_does_not_block() {
+        UUID chatId = UUID.randomUUID();
+        ChatRoomRegistry registry = new ChatRoomRegistry();
+        ChatSession session = new ChatSession("1", UUID.randomUUID());
+        registry.register(session);
+        registry.join(chatId, session);
+        String frame = "{\"chatId\":\"" + chatId + "\",\"senderID\":\"" + UUID.randomUUID() + "\",\"content\":\"hi\"}";
+
+        Mono<Integer> hotPath = handler.readFrame(frame, session)
+                .map(message -> registry.publish(message.getChatId(), message.getMessageID(), handler.toJson(message)))
+                .subscribeOn(Schedulers.parallel());
+
+        StepVerifier.create(hotPath).expectNext(1).verifyComplete();
+    }
+
+    @Test
+    @DisplayName("Large frames are parsed on a virtual thread, small ones in place")
+    void large_frames_are_offloaded() {
+        ChatSession session = new ChatSession("1", UUID.randomUUID());
+        String small = "{\"chatId\":\"" + UUID.randomUUID() + "\",\"content\":\"hi\"}";
+        String large = "{\"chatId\":\"" + UUID.randomUUID() + "\",\"content\":\"" + "x".repeat(32 * 1024) + "\"}";
+
+        StepVerifier.create(handler.readFrame(small, session).map(ChatHotPathBlockingTest::onVirtualThread))
+                .expectNext(false)
+                .verifyComplete();
+        StepVerifier.create(handler.readFrame(large, session).map(ChatHotPathBlockingTest::onVirtualThread))
+                .expectNext(true)
+                .verifyComplete();
+    }
+
+    private static boolean onVirtualThread(Message message) {
+        return Thread.currentThread().isVirtual();
+    }
+
+    private static String blockingCall() throws InterruptedException {
+        Thread.sleep(5);
+        return "done";
+    }
+}
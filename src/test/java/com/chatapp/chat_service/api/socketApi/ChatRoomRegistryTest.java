@@ -0,0 +1,86 @@
+package com.chatapp.chat_service.api.socketApi;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import reactor.test.StepVerifier;
+
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ChatRoomRegistryTest {
+
+    private static final byte[] HELLO = "hello".getBytes(StandardCharsets.UTF_8);
+
+    private ChatRoomRegistry registry;
+    private UUID chatA;
+    private UUID chatB;
+
+    @BeforeEach
+    void setUp() {
+        registry = new ChatRoomRegistry();
+        chatA = UUID.randomUUID();
+        chatB = UUID.randomUUID();
+    }
+
+    @Test
+    @DisplayName("Message is delivered only to sessions of its room")
+    void publish_only_to_room() {
+        ChatSession inA = new ChatSession("1", UUID.randomUUID());
+        ChatSession inB = new ChatSession("2", UUID.randomUUID());
+        registry.join(chatA, inA);
+        registry.join(chatB, inB);
+
+        assertThat(registry.publish(chatA, HELLO)).isEqualTo(1);
+        inA.close();
+        inB.close();
+
+        StepVerifier.create(inA.outbound())
+                .expectNext(HELLO)
+                .verifyComplete();
+        StepVerifier.create(inB.outbound())
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("Empty rooms are removed when the last session leaves")
+    void leaveAll_removes_empty_rooms() {
+        ChatSession session = new ChatSession("1", UUID.randomUUID());
+        registry.join(chatA, session);
+        registry.join(chatB, session);
+
+        registry.leaveAll(session);
+
+        assertThat(registry.roomCount()).isZero();
+        assertThat(registry.hasListeners(chatA)).isFalse();
+        assertThat(registry.publish(chatA, HELLO)).isZero();
+    }
+
+    @Test
+    @DisplayName("Session and outbound meters keep counting after sessions leave")
+    void meters_survive_disconnect() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        registry.bindTo(meterRegistry);
+        ChatSession session = new ChatSession("1", UUID.randomUUID());
+        registry.register(session);
+        registry.join(chatA, session);
+
+        assertThat(meterRegistry.get("chat.ws.sessions").gauge().value()).isEqualTo(1);
+        registry.publish(chatA, HELLO);
+        session.close();
+        StepVerifier.create(session.outbound()).expectNextCount(1).verifyComplete();
+        registry.unregister(session);
+
+        assertThat(meterRegistry.get("chat.ws.sessions").gauge().value()).isZero();
+        assertThat(meterRegistry.get("chat.ws.outbound.sent").functionCounter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("chat.ws.outbound.queued").functionCounter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void publish_without_chatId() {
+        assertThat(registry.publish(null, HELLO)).isZero();
+    }
+}
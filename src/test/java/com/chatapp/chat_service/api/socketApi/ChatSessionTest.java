@@ -0,0 +1,157 @@
+package com.chatapp.chat_service.api.socketApi;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import reactor.test.StepVerifier;
+
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ChatSessionTest {
+
+    private final UUID chatA = UUID.randomUUID();
+    private final UUID chatB = UUID.randomUUID();
+
+    @Test
+    @DisplayName("DROP_OLDEST keeps the newest frames")
+    void drop_oldest() {
+        ChatSession session = new ChatSession("1", UUID.randomUUID(), 2, SlowConsumerPolicy.DROP_OLDEST, () -> {});
+
+        session.deliver(chatA, bytes("1"));
+        session.deliver(chatA, bytes("2"));
+        session.deliver(chatA, bytes("3"));
+        session.close();
+
+        StepVerifier.create(session.outbound().map(String::new))
+                .expectNext("2", "3")
+                .verifyComplete();
+        assertThat(session.dropped()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("COALESCE evicts the oldest frame of the same chat")
+    void coalesce() {
+        ChatSession session = new ChatSession("1", UUID.randomUUID(), 3, SlowConsumerPolicy.COALESCE, () -> {});
+
+        session.deliver(chatA, bytes("a1"));
+        session.deliver(chatB, bytes("b1"));
+        session.deliver(chatA, bytes("a2"));
+        session.deliver(chatB, bytes("b2"));
+        session.close();
+
+        StepVerifier.create(session.outbound().map(String::new))
+                .expectNext("a1", "a2", "b2")
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("DISCONNECT fires the slow-consumer callback once")
+    void disconnect() {
+        AtomicInteger disconnects = new AtomicInteger();
+        ChatSession session = new ChatSession("1", UUID.randomUUID(), 1, SlowConsumerPolicy.DISCONNECT,
+                disconnects::incrementAndGet);
+
+        assertThat(session.deliver(chatA, bytes("1"))).isTrue();
+        assertThat(session.deliver(chatA, bytes("2"))).isFalse();
+        assertThat(session.deliver(chatA, bytes("3"))).isFalse();
+
+        assertThat(disconnects.get()).isEqualTo(1);
+        assertThat(session.stats().dropped()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Concurrent producers never fail emission")
+    void concurrent_deliver() throws Exception {
+        int producers = 8;
+        int perProducer = 1_000;
+        ChatSession session = new ChatSession("1", UUID.randomUUID(), producers * perProducer,
+                SlowConsumerPolicy.DROP_OLDEST, () -> {});
+        ExecutorService pool = Executors.newFixedThreadPool(producers);
+        CountDownLatch done = new CountDownLatch(producers);
+
+        for (int p = 0; p < producers; p++) {
+            pool.execute(() -> {
+                for (int i = 0; i < perProducer; i++) {
+                    session.deliver(chatA, bytes("x"));
+                }
+                done.countDown();
+            });
+        }
+        assertThat(done.await(10, TimeUnit.SECONDS)).isTrue();
+        pool.shutdown();
+
+        assertThat(session.queued()).isEqualTo(producers * perProducer);
+        assertThat(session.dropped()).isZero();
+    }
+
+    @Test
+    @DisplayName("Live frames wait for the replay and skip what it already sent")
+    void replay_then_live_without_duplicates() {
+        ChatSession session = new ChatSession("1", UUID.randomUUID());
+        UUID m1 = UUID.randomUUID();
+        UUID m2 = UUID.randomUUID();
+        UUID m3 = UUID.randomUUID();
+
+        session.beginReplay(chatA);
+        session.deliver(chatA, m2, bytes("live-2"));   // published while the gap was being read
+        session.deliver(chatA, m3, bytes("live-3"));
+        session.deliver(chatB, null, bytes("other"));  // other chats are not held
+        // the replay itself is written by the handler ahead of outbound()
+        assertThat(session.replay(chatA, m1)).isTrue();
+        assertThat(session.replay(chatA, m2)).isTrue();
+        assertThat(session.replay(chatA, m2)).isFalse();
+        session.endReplay(chatA, bytes("gap"));
+        session.close();
+
+        StepVerifier.create(session.outbound().map(String::new))
+                .expectNext("other", "live-3")
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("A message published after the replay ended is not sent twice")
+    void late_live_copy_of_replayed_message_is_dropped() {
+        ChatSession session = new ChatSession("1", UUID.randomUUID());
+        UUID m1 = UUID.randomUUID();
+        UUID m2 = UUID.randomUUID();
+
+        session.beginReplay(chatA);
+        session.replay(chatA, m1);          // persisted, read by the replay ...
+        session.endReplay(chatA);
+        session.deliver(chatA, m1, bytes("live-1"));  // ... and only now published
+        session.deliver(chatA, m2, bytes("live-2"));
+        session.close();
+
+        StepVerifier.create(session.outbound().map(String::new))
+                .expectNext("live-2")
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("A hold that overflows announces the gap before its frames")
+    void overflowing_hold_sends_gap() {
+        ChatSession session = new ChatSession("1", UUID.randomUUID(), 2, SlowConsumerPolicy.DROP_OLDEST, () -> {});
+
+        session.beginReplay(chatA);
+        session.deliver(chatA, UUID.randomUUID(), bytes("live-1"));
+        session.deliver(chatA, UUID.randomUUID(), bytes("live-2"));
+        session.deliver(chatA, UUID.randomUUID(), bytes("live-3"));
+        session.endReplay(chatA, bytes("gap"));
+        session.close();
+
+        StepVerifier.create(session.outbound().map(String::new))
+                .expectNext("gap", "live-2", "live-3")
+                .verifyComplete();
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
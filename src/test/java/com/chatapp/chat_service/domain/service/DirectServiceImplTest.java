@@ -0,0 +1,108 @@
+package com.chatapp.chat_service.domain.service;
+
+import com.chatapp.chat_service.api.dto.DirectDto;
+import com.chatapp.chat_service.domain.model.ChatType;
+import com.chatapp.chat_service.domain.model.Direct;
+import com.chatapp.chat_service.domain.repository.DirectRepository;
+import com.chatapp.chat_service.infrastructure.persistence.jpa.MembershipService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.cassandra.core.EntityWriteResult;
+import org.springframework.data.cassandra.core.InsertOptions;
+import org.springframework.data.cassandra.core.ReactiveCassandraOperations;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.ReactiveValueOperations;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class DirectServiceImplTest {
+
+    @InjectMocks
+    DirectServiceImpl service;
+
+    @Mock
+    DirectRepository repository;
+
+    @Mock
+    ReactiveCassandraOperations operations;
+
+    @Mock
+    MembershipService membershipService;
+
+    @Mock
+    ReactiveStringRedisTemplate redisTemplate;
+
+    @Mock
+    ReactiveValueOperations<String, String> valueOperations;
+
+    private final UUID alice = UUID.randomUUID();
+    private final UUID bob = UUID.randomUUID();
+
+    @Test
+    @DisplayName("Chat id does not depend on who opens the chat")
+    void chatId_is_symmetric() {
+        assertEquals(Direct.chatIdOf(alice, bob), Direct.chatIdOf(bob, alice));
+        assertNotEquals(Direct.chatIdOf(alice, bob), Direct.chatIdOf(alice, UUID.randomUUID()));
+    }
+
+    @Test
+    @DisplayName("Known pair is served from the marker without touching ScyllaDB")
+    void marker_hit() {
+        UUID chatId = Direct.chatIdOf(alice, bob);
+        when(redisTemplate.hasKey("direct:" + chatId)).thenReturn(Mono.just(true));
+
+        StepVerifier.create(service.getOrCreateDirect(alice, bob))
+                .expectNext(new DirectDto(chatId, Direct.participants(alice, bob)))
+                .verifyComplete();
+        verifyNoInteractions(operations, membershipService);
+    }
+
+    @Test
+    @DisplayName("Losing the IF NOT EXISTS race still returns the same chat")
+    void create_race_lost() {
+        UUID chatId = Direct.chatIdOf(alice, bob);
+        EntityWriteResult<Direct> notApplied = mock();
+        when(notApplied.wasApplied()).thenReturn(false);
+
+        when(redisTemplate.hasKey("direct:" + chatId)).thenReturn(Mono.just(false));
+        when(operations.insert(any(Direct.class), any(InsertOptions.class))).thenReturn(Mono.just(notApplied));
+        when(membershipService.addMembers(eq(chatId), eq(ChatType.DIRECT), any())).thenReturn(Mono.empty());
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.set(anyString(), anyString(), any(Duration.class))).thenReturn(Mono.just(true));
+
+        StepVerifier.create(service.getOrCreateDirect(bob, alice))
+                .assertNext(dto -> assertEquals(chatId, dto.chatId()))
+                .verifyComplete();
+        verify(membershipService).addMembers(chatId, ChatType.DIRECT, Direct.participants(alice, bob));
+        verify(valueOperations).set(eq("direct:" + chatId), anyString(), any(Duration.class));
+    }
+
+    @Test
+    void same_user_rejected() {
+        StepVerifier.create(service.getOrCreateDirect(alice, alice))
+                .expectError(IllegalArgumentException.class)
+                .verify();
+        verifyNoInteractions(redisTemplate, operations);
+    }
+
+    @Test
+    void participants_are_ordered() {
+        List<UUID> pair = Direct.participants(bob, alice);
+        assertTrue(pair.get(0).compareTo(pair.get(1)) <= 0);
+    }
+}
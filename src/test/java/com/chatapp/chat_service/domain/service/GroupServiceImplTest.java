@@ -2,24 +2,45 @@ package com.chatapp.chat_service.domain.service;
 
 import com.chatapp.chat_service.api.dto.CreateGroupDto;
 import com.chatapp.chat_service.api.dto.GroupDto;
+import com.chatapp.chat_service.domain.model.ChatType;
 import com.chatapp.chat_service.domain.model.Group;
 import com.chatapp.chat_service.domain.repository.GroupRepository;
 import com.chatapp.chat_service.infrastructure.mapper.GroupMapper;
+import com.chatapp.chat_service.infrastructure.persistence.db.ScyllaMetrics;
+import com.chatapp.chat_service.infrastructure.persistence.jpa.MembershipService;
+import com.chatapp.chat_service.infrastructure.persistence.redis.GroupNearCache;
 import com.chatapp.chat_service.infrastructure.persistence.redis.GroupRedisService;
+import com.datastax.oss.driver.api.core.cql.Row;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.cassandra.core.ReactiveCassandraOperations;
+import org.springframework.data.cassandra.core.cql.ReactiveCqlOperations;
+import org.springframework.data.cassandra.core.query.CassandraPageRequest;
+import org.springframework.data.cassandra.core.query.Query;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.SliceImpl;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
 import reactor.test.StepVerifier;
+import java.nio.ByteBuffer;
 import java.time.Instant;
+import java.util.Base64;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.UUID;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -31,14 +52,30 @@ class GroupServiceImplTest {
     @Mock
     GroupRepository repository;
 
+    @Mock
+    ReactiveCassandraOperations operations;
+
+    @Mock
+    ReactiveCqlOperations cqlOperations;
+
     @Mock
     GroupRedisService redisService;
 
+    @Mock
+    GroupNearCache nearCache;
+
+    @Mock
+    MembershipService membershipService;
+
     @Mock
     GroupMapper mapper;
 
+    @Spy
+    ScyllaMetrics scyllaMetrics = new ScyllaMetrics(new SimpleMeterRegistry());
+
     private final UUID id = UUID.randomUUID();
     private final List<UUID> list = List.of(UUID.randomUUID() , UUID.randomUUID());
+    private final Set<UUID> members = new LinkedHashSet<>(list);
     private final UUID admin = UUID.randomUUID();
     private final Instant now = Instant.now();
 
@@ -52,7 +89,7 @@ class GroupServiceImplTest {
                 .title("test")
                 .description("desc")
                 .admin(admin)
-                .members(list)
+                .members(members)
                 .created_at(now)
                 .updated_at(now)
                 .build();
@@ -61,21 +98,49 @@ class GroupServiceImplTest {
 
         when(mapper.toDomain(dto)).thenReturn(group);
         when(repository.save(group)).thenReturn(Mono.just(group));
+        when(membershipService.addMembers(eq(id), eq(ChatType.GROUP), any())).thenReturn(Mono.empty());
         when(redisService.saveGroup(group)).thenReturn(Mono.just(group));
+        when(nearCache.invalidate(id)).thenReturn(Mono.empty());
         when(mapper.toDto(group)).thenReturn(dto1);
 
         StepVerifier.create(service.createGroup(dto))
                 .expectNext(dto1)
                 .verifyComplete();
         verify(repository).save(group);
+        verify(membershipService).addMembers(id, ChatType.GROUP, Set.of(list.get(0), list.get(1), admin));
         verify(redisService).saveGroup(group);
+        verify(nearCache).put(group);
+    }
+
+    @Test
+    @DisplayName("Update re-indexes only the members that changed")
+    void updateGroup_reindexes_changed_members() {
+        UUID kept = list.get(0);
+        UUID dropped = list.get(1);
+        UUID joined = UUID.randomUUID();
+        Group group = new Group(id, "test", "desc", admin, new LinkedHashSet<>(list), now, now);
+        CreateGroupDto dto = new CreateGroupDto("test", "desc", admin, List.of(kept, joined));
+
+        when(repository.findById(id)).thenReturn(Mono.just(group));
+        when(repository.save(group)).thenReturn(Mono.just(group));
+        when(membershipService.addMembers(id, ChatType.GROUP, Set.of(joined))).thenReturn(Mono.empty());
+        when(membershipService.removeMembers(id, Set.of(dropped))).thenReturn(Mono.empty());
+        when(redisService.saveGroup(group)).thenReturn(Mono.just(group));
+        when(nearCache.invalidate(id)).thenReturn(Mono.empty());
+        when(mapper.toDto(group)).thenReturn(new GroupDto(id, "test", "desc", admin, dto.members(), now, now));
+
+        StepVerifier.create(service.updateGroup(id, dto))
+                .expectNextCount(1)
+                .verifyComplete();
+        verify(membershipService).addMembers(id, ChatType.GROUP, Set.of(joined));
+        verify(membershipService).removeMembers(id, Set.of(dropped));
     }
 
     @Test
     void createGroup_repository_failed() {
         CreateGroupDto dto = new CreateGroupDto("test", "desc", admin, list);
 
-        Group group = new Group(id, "test", "desc", admin, list, now, now);
+        Group group = new Group(id, "test", "desc", admin, members, now, now);
 
         when(mapper.toDomain(dto)).thenReturn(group);
         when(repository.save(group)).thenReturn(Mono.error(new RuntimeException("Db down")));
@@ -88,26 +153,41 @@ class GroupServiceImplTest {
     // Find_By_Id
     @Test
     void getGroupById_by_redis_success() {
-        Group group =  new Group(id , "test" , "desc" , admin ,list , now , now);
+        Group group =  new Group(id , "test" , "desc" , admin, members, now, now);
         GroupDto dto = new GroupDto(id, "test", "desc", admin, list, now, now);
 
-        when(redisService.getGroupById(String.valueOf(id))).thenReturn(Mono.just(group));
+        when(redisService.getGroupWithRefreshHint(String.valueOf(id)))
+                .thenReturn(Mono.just(new GroupRedisService.CachedGroup(group, false)));
         when(mapper.toDto(group)).thenReturn(dto);
 
         StepVerifier.create(service.getGroupById(id))
                 .expectNext(dto)
                 .verifyComplete();
-        verify(redisService).getGroupById(id.toString());
+        verify(redisService).getGroupWithRefreshHint(id.toString());
         verify(repository, never() ).findById(id);
         verify(mapper).toDto(group);
     }
 
+    @Test
+    void getGroupById_by_near_cache() {
+        Group group =  new Group(id , "test" , "desc" , admin, members, now, now);
+        GroupDto dto = new GroupDto(id, "test", "desc", admin, list, now, now);
+
+        when(nearCache.get(id)).thenReturn(group);
+        when(mapper.toDto(group)).thenReturn(dto);
+
+        StepVerifier.create(service.getGroupById(id))
+                .expectNext(dto)
+                .verifyComplete();
+        verifyNoInteractions(redisService, repository);
+    }
+
     @Test
     void getGroupById_by_repo_success() {
-        Group group =  new Group(id, "test", "desc", admin, list, now, now);
+        Group group =  new Group(id, "test", "desc", admin, members, now, now);
         GroupDto dto = new GroupDto(id, "test", "desc", admin, list, now, now);
 
-        when(redisService.getGroupById(String.valueOf(id))).thenReturn(Mono.empty());
+        when(redisService.getGroupWithRefreshHint(String.valueOf(id))).thenReturn(Mono.empty());
         when(repository.findById(id)).thenReturn(Mono.just(group));
         when(redisService.saveGroup(group)).thenReturn(Mono.just(group));
         when(mapper.toDto(group)).thenReturn(dto);
@@ -116,17 +196,17 @@ class GroupServiceImplTest {
                 .expectNext(dto)
                 .verifyComplete();
 
-        verify(redisService).getGroupById(id.toString());
+        verify(redisService).getGroupWithRefreshHint(id.toString());
         verify(repository).findById(id);
         verify(mapper).toDto(group);
     }
 
     @Test
     void getGroupById_failed() {
-        Group group =  new Group(id, "test", "desc", admin, list, now, now);
+        Group group =  new Group(id, "test", "desc", admin, members, now, now);
         GroupDto dto = new GroupDto(id, "test", "desc", admin, list, now, now);
 
-        when(redisService.getGroupById(String.valueOf(id))).thenReturn(Mono.empty());
+        when(redisService.getGroupWithRefreshHint(String.valueOf(id))).thenReturn(Mono.empty());
         when(repository.findById(id)).thenReturn(Mono.error(new RuntimeException("Db down")));
 
         StepVerifier.create(service.getGroupById(id))
@@ -134,35 +214,247 @@ class GroupServiceImplTest {
                 .verify();
     }
 
-    // Find_All
     @Test
-    void find_All_success() {
-        Group group = new Group(id, "test", "desc", admin, list, now, now);
+    @DisplayName("Concurrent misses for one group share a single repository load")
+    void getGroupById_single_flight() {
+        Group group =  new Group(id, "test", "desc", admin, members, now, now);
         GroupDto dto = new GroupDto(id, "test", "desc", admin, list, now, now);
+        Sinks.One<Group> slowLoad = Sinks.one();
 
-        when(repository.findAllBy(any(PageRequest.class))).thenReturn(Flux.just(group));
+        when(redisService.getGroupWithRefreshHint(String.valueOf(id))).thenReturn(Mono.empty());
+        when(repository.findById(id)).thenReturn(slowLoad.asMono());
+        when(redisService.saveGroup(group)).thenReturn(Mono.just(group));
         when(mapper.toDto(group)).thenReturn(dto);
 
-        StepVerifier.create(service.getAllGroup(1,2))
+        Mono<List<GroupDto>> both = Flux.merge(service.getGroupById(id), service.getGroupById(id)).collectList();
+
+        StepVerifier.create(both)
+                .then(() -> slowLoad.tryEmitValue(group))
+                .assertNext(result -> assertEquals(2, result.size()))
+                .verifyComplete();
+        verify(repository, times(1)).findById(id);
+        verify(redisService, times(1)).saveGroup(group);
+    }
+
+    @Test
+    @DisplayName("A load that overlaps an evict drops its row and reloads instead of caching the old copy")
+    void getGroupById_load_overlapping_evict_reloads() {
+        Group stale = new Group(id, "test", "desc", admin, members, now, now);
+        Group fresh = new Group(id, "test", "desc", admin, Set.of(list.get(0)), now, now);
+        GroupDto dto = new GroupDto(id, "test", "desc", admin, List.of(list.get(0)), now, now);
+        Sinks.One<Group> slowLoad = Sinks.one();
+        Row row = mock(Row.class);
+
+        when(redisService.getGroupWithRefreshHint(String.valueOf(id))).thenReturn(Mono.empty());
+        when(repository.findById(id)).thenReturn(slowLoad.asMono(), Mono.just(fresh));
+        when(redisService.saveGroup(any())).thenAnswer(inv -> Mono.just(inv.getArgument(0)));
+        when(redisService.evictGroup(id)).thenReturn(Mono.empty());
+        when(nearCache.invalidate(id)).thenReturn(Mono.empty());
+        when(operations.getReactiveCqlOperations()).thenReturn(cqlOperations);
+        when(cqlOperations.queryForRows(contains("SELECT admin"), eq(id))).thenReturn(Flux.just(row));
+        when(cqlOperations.execute(anyString(), any(), any(), any())).thenReturn(Mono.just(true));
+        when(membershipService.removeMembers(eq(id), any())).thenReturn(Mono.empty());
+        when(mapper.toDto(fresh)).thenReturn(dto);
+
+        StepVerifier.create(service.getGroupById(id))
+                .then(() -> service.removeMembers(id, List.of(list.get(1))).block())
+                .then(() -> slowLoad.tryEmitValue(stale))
                 .expectNext(dto)
                 .verifyComplete();
+        verify(repository, times(2)).findById(id);
+        // once by removeMembers, once by the superseded load for what it wrote
+        verify(redisService, times(2)).evictGroup(id);
+        verify(nearCache, never()).put(stale);
+        verify(nearCache).put(fresh);
+    }
 
-        verify(repository).findAllBy(PageRequest.of(1,2));
-        verify(mapper).toDto(group);
+    @Test
+    @DisplayName("A load that overlaps an update reloads instead of caching the row from before it")
+    void getGroupById_load_overlapping_update_reloads() {
+        Group stale = new Group(id, "test", "desc", admin, members, now, now);
+        Group row = new Group(id, "test", "desc", admin, new LinkedHashSet<>(list), now, now);
+        CreateGroupDto update = new CreateGroupDto("renamed", "desc", admin, list);
+        Sinks.One<Group> slowLoad = Sinks.one();
+
+        when(redisService.getGroupWithRefreshHint(String.valueOf(id))).thenReturn(Mono.empty());
+        when(repository.findById(id)).thenReturn(slowLoad.asMono(), Mono.just(row), Mono.just(row));
+        when(repository.save(row)).thenReturn(Mono.just(row));
+        when(membershipService.addMembers(eq(id), eq(ChatType.GROUP), any())).thenReturn(Mono.empty());
+        when(membershipService.removeMembers(eq(id), any())).thenReturn(Mono.empty());
+        when(redisService.saveGroup(any())).thenAnswer(inv -> Mono.just(inv.getArgument(0)));
+        when(redisService.evictGroup(id)).thenReturn(Mono.empty());
+        when(nearCache.invalidate(id)).thenReturn(Mono.empty());
+        when(mapper.toDto(any())).thenAnswer(inv -> {
+            Group g = inv.getArgument(0);
+            return new GroupDto(g.getGroupID(), g.getTitle(), g.getDescription(), admin, list, now, now);
+        });
+
+        StepVerifier.create(service.getGroupById(id).map(GroupDto::title))
+                .then(() -> service.updateGroup(id, update).block())
+                .then(() -> slowLoad.tryEmitValue(stale))
+                .expectNext("renamed")
+                .verifyComplete();
+        // the superseded load drops what it wrote, then reads the updated row
+        verify(redisService).evictGroup(id);
+        verify(repository, times(3)).findById(id);
+        verify(nearCache, never()).put(stale);
+    }
+
+    @Test
+    @DisplayName("A hit close to expiry is served from cache and reloaded in the background")
+    void getGroupById_early_refresh() {
+        Group group =  new Group(id, "test", "desc", admin, members, now, now);
+        GroupDto dto = new GroupDto(id, "test", "desc", admin, list, now, now);
+
+        when(redisService.getGroupWithRefreshHint(String.valueOf(id)))
+                .thenReturn(Mono.just(new GroupRedisService.CachedGroup(group, true)));
+        when(repository.findById(id)).thenReturn(Mono.just(group));
+        when(redisService.saveGroup(group)).thenReturn(Mono.just(group));
+        when(mapper.toDto(group)).thenReturn(dto);
+
+        StepVerifier.create(service.getGroupById(id))
+                .expectNext(dto)
+                .verifyComplete();
+        verify(repository).findById(id);
+        verify(redisService).saveGroup(group);
+        // once for the served hit, once for the reloaded copy
+        verify(nearCache, times(2)).put(group);
+    }
 
+    // Bulk
+    @Test
+    @DisplayName("Bulk lookup reads each tier once and backfills only the misses")
+    void getGroupsByIds_all_tiers() {
+        UUID nearId = UUID.randomUUID();
+        UUID redisId = UUID.randomUUID();
+        UUID dbId = UUID.randomUUID();
+        Group nearGroup = new Group(nearId, "near", "desc", admin, members, now, now);
+        Group redisGroup = new Group(redisId, "redis", "desc", admin, members, now, now);
+        Group dbGroup = new Group(dbId, "db", "desc", admin, members, now, now);
+
+        when(nearCache.get(nearId)).thenReturn(nearGroup);
+        when(redisService.getGroupsByIds(List.of(redisId, dbId))).thenReturn(Flux.just(redisGroup));
+        when(repository.findById(dbId)).thenReturn(Mono.just(dbGroup));
+        when(redisService.saveAll(List.of(dbGroup))).thenReturn(Flux.just(dbGroup));
+        when(mapper.toDto(any(Group.class))).thenAnswer(inv -> {
+            Group g = inv.getArgument(0);
+            return new GroupDto(g.getGroupID(), g.getTitle(), g.getDescription(), admin, list, now, now);
+        });
+
+        StepVerifier.create(service.getGroupsByIds(List.of(nearId, redisId, dbId, nearId)).map(GroupDto::groupID))
+                .expectNext(nearId, redisId, dbId)
+                .verifyComplete();
+        verify(repository, never()).findById(redisId);
+        verify(repository, never()).findById(nearId);
+    }
+
+    @Test
+    @DisplayName("Adding members is a set union on the row, without reading the group")
+    void addMembers_adds_to_member_set() {
+        UUID joined = UUID.randomUUID();
+        Row row = mock(Row.class);
+
+        when(operations.getReactiveCqlOperations()).thenReturn(cqlOperations);
+        when(cqlOperations.queryForRows(contains("SELECT admin"), eq(id))).thenReturn(Flux.just(row));
+        when(cqlOperations.execute(anyString(), any(), any(), any())).thenReturn(Mono.just(true));
+        when(membershipService.addMembers(id, ChatType.GROUP, Set.of(list.get(0), joined))).thenReturn(Mono.empty());
+        when(redisService.evictGroup(id)).thenReturn(Mono.empty());
+        when(nearCache.invalidate(id)).thenReturn(Mono.empty());
+
+        StepVerifier.create(service.addMembers(id, List.of(list.get(0), joined, joined)))
+                .verifyComplete();
+        verify(cqlOperations).execute(contains("members + ?"), eq(Set.of(list.get(0), joined)), any(), eq(id));
+        verify(repository, never()).findById(any(UUID.class));
+        verify(repository, never()).save(any());
+        verify(redisService).evictGroup(id);
     }
 
     @Test
-    void find_All_failed() {
-        when(repository.findAllBy(any(PageRequest.class))).thenReturn(Flux.error(new RuntimeException("Db down")));
+    void addMembers_group_not_found() {
+        when(operations.getReactiveCqlOperations()).thenReturn(cqlOperations);
+        when(cqlOperations.queryForRows(contains("SELECT admin"), eq(id))).thenReturn(Flux.empty());
 
-        StepVerifier.create(service.getAllGroup(1, 2))
+        StepVerifier.create(service.addMembers(id, List.of(UUID.randomUUID())))
                 .expectError(RuntimeException.class)
                 .verify();
+        verify(cqlOperations, never()).execute(anyString(), any(), any(), any());
+        verifyNoInteractions(membershipService);
+    }
+
+    @Test
+    void removeMembers_removes_without_reading_group() {
+        Row row = mock(Row.class);
+        when(row.getUuid("admin")).thenReturn(admin);
+        when(operations.getReactiveCqlOperations()).thenReturn(cqlOperations);
+        when(cqlOperations.queryForRows(contains("SELECT admin"), eq(id))).thenReturn(Flux.just(row));
+        when(cqlOperations.execute(anyString(), any(), any(), any())).thenReturn(Mono.just(true));
+        when(membershipService.removeMembers(id, Set.of(list.get(1)))).thenReturn(Mono.empty());
+        when(redisService.evictGroup(id)).thenReturn(Mono.empty());
+        when(nearCache.invalidate(id)).thenReturn(Mono.empty());
+
+        StepVerifier.create(service.removeMembers(id, List.of(list.get(1))))
+                .verifyComplete();
+        verify(cqlOperations).execute(contains("members - ?"), eq(Set.of(list.get(1))), any(), eq(id));
+        verify(repository, never()).findById(any(UUID.class));
+    }
+
+    @Test
+    @DisplayName("Removing the admin from the members set keeps the admin's chat index entry")
+    void removeMembers_keeps_admin_indexed() {
+        Row row = mock(Row.class);
+        when(row.getUuid("admin")).thenReturn(admin);
+        when(operations.getReactiveCqlOperations()).thenReturn(cqlOperations);
+        when(cqlOperations.queryForRows(contains("SELECT admin"), eq(id))).thenReturn(Flux.just(row));
+        when(cqlOperations.execute(anyString(), any(), any(), any())).thenReturn(Mono.just(true));
+        when(membershipService.removeMembers(id, Set.of(list.get(0)))).thenReturn(Mono.empty());
+        when(redisService.evictGroup(id)).thenReturn(Mono.empty());
+        when(nearCache.invalidate(id)).thenReturn(Mono.empty());
+
+        StepVerifier.create(service.removeMembers(id, List.of(list.get(0), admin)))
+                .verifyComplete();
+        verify(cqlOperations).execute(contains("members - ?"), eq(Set.of(list.get(0), admin)), any(), eq(id));
+        verify(membershipService).removeMembers(id, Set.of(list.get(0)));
+    }
 
-        verify(repository).findAllBy(PageRequest.of(1, 2));
+    @Test
+    @DisplayName("Page cursor is the encoded driver paging state")
+    void getGroupPage_returns_cursor() {
+        Group group = new Group(id, "test", "desc", admin, members, now, now);
+        GroupDto dto = new GroupDto(id, "test", "desc", admin, list, now, now);
+        byte[] state = {1, 2, 3};
+        var slice = new SliceImpl<>(List.of(group),
+                CassandraPageRequest.of(PageRequest.of(0, 1), ByteBuffer.wrap(state)), true);
 
+        when(operations.slice(any(Query.class), eq(Group.class))).thenReturn(Mono.just(slice));
+        when(mapper.toDto(group)).thenReturn(dto);
+
+        StepVerifier.create(service.getGroupPage(null, 1))
+                .assertNext(page -> {
+                    assertEquals(List.of(dto), page.groups());
+                    assertArrayEquals(state, Base64.getUrlDecoder().decode(page.nextCursor()));
+                })
+                .verifyComplete();
     }
 
+    @Test
+    void getGroupPage_rejects_malformed_cursor() {
+        StepVerifier.create(service.getGroupPage("not base64!", 10))
+                .expectError(IllegalArgumentException.class)
+                .verify();
+        verifyNoInteractions(operations);
+    }
 
-}
\ No newline at end of file
+    @Test
+    @DisplayName("Token ranges cover the whole ring without gaps")
+    void tokenRanges_cover_ring() {
+        List<GroupServiceImpl.TokenRange> ranges = GroupServiceImpl.tokenRanges(64);
+
+        assertEquals(64, ranges.size());
+        assertEquals(Long.MIN_VALUE, ranges.getFirst().start());
+        assertEquals(Long.MAX_VALUE, ranges.getLast().end());
+        for (int i = 1; i < ranges.size(); i++) {
+            assertEquals(ranges.get(i - 1).end(), ranges.get(i).start());
+            assertTrue(ranges.get(i).start() < ranges.get(i).end());
+        }
+    }
+}
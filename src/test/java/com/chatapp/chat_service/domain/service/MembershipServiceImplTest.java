@@ -0,0 +1,140 @@
+package com.chatapp.chat_service.domain.service;
+
+import com.chatapp.chat_service.domain.model.ChatType;
+import com.chatapp.chat_service.domain.model.UserChat;
+import com.chatapp.chat_service.domain.repository.UserChatRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.ReactiveSetOperations;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.ReactiveValueOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class MembershipServiceImplTest {
+
+    @InjectMocks
+    MembershipServiceImpl service;
+
+    @Mock
+    UserChatRepository repository;
+
+    @Mock
+    ReactiveStringRedisTemplate redisTemplate;
+
+    @Mock
+    ReactiveSetOperations<String, String> setOperations;
+
+    @Mock
+    ReactiveValueOperations<String, String> valueOperations;
+
+    private final UUID userId = UUID.randomUUID();
+    private final UUID chatA = UUID.randomUUID();
+    private final UUID chatB = UUID.randomUUID();
+    private final String key = "user:{" + userId + "}:chats";
+    private final String generationKey = key + ":gen";
+
+    @Test
+    @DisplayName("A cached set is served without touching the table")
+    void getChatIds_hit() {
+        when(redisTemplate.opsForSet()).thenReturn(setOperations);
+        when(setOperations.members(key)).thenReturn(Flux.just(chatA.toString(), chatB.toString()));
+
+        StepVerifier.create(service.getChatIds(userId))
+                .expectNext(chatA, chatB)
+                .verifyComplete();
+        verifyNoInteractions(repository);
+    }
+
+    @Test
+    @DisplayName("A cached empty result is served as no chats, not reloaded")
+    void getChatIds_cached_empty() {
+        when(redisTemplate.opsForSet()).thenReturn(setOperations);
+        when(setOperations.members(key)).thenReturn(Flux.just("-"));
+
+        StepVerifier.create(service.getChatIds(userId))
+                .verifyComplete();
+        verifyNoInteractions(repository);
+    }
+
+    @Test
+    @DisplayName("A miss loads the table and caches it under the generation seen before the read")
+    void getChatIds_miss_loads_and_caches() {
+        when(redisTemplate.opsForSet()).thenReturn(setOperations);
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(setOperations.members(key)).thenReturn(Flux.empty());
+        when(valueOperations.get(generationKey)).thenReturn(Mono.just("4"));
+        when(repository.findByUserId(userId)).thenReturn(Flux.just(
+                new UserChat(userId, chatA, ChatType.GROUP), new UserChat(userId, chatB, ChatType.DIRECT)));
+        when(redisTemplate.execute(any(RedisScript.class), anyList(), anyList())).thenReturn(Flux.just(1L));
+
+        StepVerifier.create(service.getChatIds(userId))
+                .expectNext(chatA, chatB)
+                .verifyComplete();
+        verify(redisTemplate).execute(any(RedisScript.class), eq(List.of(key, generationKey)),
+                argThat(args -> args.get(0).equals("4") && args.subList(2, args.size())
+                        .equals(List.of(chatA.toString(), chatB.toString()))));
+    }
+
+    @Test
+    @DisplayName("A user in no chats is cached as the empty marker")
+    void getChatIds_miss_caches_empty() {
+        when(redisTemplate.opsForSet()).thenReturn(setOperations);
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(setOperations.members(key)).thenReturn(Flux.empty());
+        when(valueOperations.get(generationKey)).thenReturn(Mono.empty());
+        when(repository.findByUserId(userId)).thenReturn(Flux.empty());
+        when(redisTemplate.execute(any(RedisScript.class), anyList(), anyList())).thenReturn(Flux.just(1L));
+
+        StepVerifier.create(service.getChatIds(userId))
+                .verifyComplete();
+        verify(redisTemplate).execute(any(RedisScript.class), eq(List.of(key, generationKey)),
+                argThat(args -> args.get(0).equals("") && args.get(2).equals("-") && args.size() == 3));
+    }
+
+    @Test
+    @DisplayName("With Redis down the table is still read, and nothing is cached")
+    void getChatIds_redis_down() {
+        when(redisTemplate.opsForSet()).thenReturn(setOperations);
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(setOperations.members(key)).thenReturn(Flux.error(new RedisConnectionFailureException("down")));
+        when(valueOperations.get(generationKey)).thenReturn(Mono.error(new RedisConnectionFailureException("down")));
+        when(repository.findByUserId(userId)).thenReturn(Flux.just(new UserChat(userId, chatA, ChatType.GROUP)));
+
+        StepVerifier.create(service.getChatIds(userId))
+                .expectNext(chatA)
+                .verifyComplete();
+        verify(redisTemplate, never()).execute(any(RedisScript.class), anyList(), anyList());
+    }
+
+    @Test
+    @DisplayName("A membership change drops the set and bumps the generation of every affected user")
+    void removeMembers_evicts() {
+        UUID other = UUID.randomUUID();
+        when(repository.deleteById(any())).thenReturn(Mono.empty());
+        when(redisTemplate.execute(any(RedisScript.class), anyList(), anyList())).thenReturn(Flux.just(1L));
+
+        StepVerifier.create(service.removeMembers(chatA, List.of(userId, other, userId)))
+                .verifyComplete();
+        verify(redisTemplate).execute(any(RedisScript.class), eq(List.of(key, generationKey)), anyList());
+        verify(redisTemplate).execute(any(RedisScript.class),
+                eq(List.of("user:{" + other + "}:chats", "user:{" + other + "}:chats:gen")), anyList());
+    }
+}
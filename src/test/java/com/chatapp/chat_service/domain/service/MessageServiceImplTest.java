@@ -1,24 +1,36 @@
 package com.chatapp.chat_service.domain.service;
 
+import com.chatapp.chat_service.domain.model.ChatBucket;
 import com.chatapp.chat_service.domain.model.Message;
+import com.chatapp.chat_service.domain.repository.ChatBucketRepository;
 import com.chatapp.chat_service.domain.repository.MessageRepository;
-import com.datastax.oss.driver.internal.core.type.codec.TimeUuidCodec;
+import com.chatapp.chat_service.infrastructure.config.TimeOrderedIdGenerator;
+import com.chatapp.chat_service.infrastructure.persistence.db.ScyllaMetrics;
+import com.chatapp.chat_service.infrastructure.persistence.jpa.UnreadCounterService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Sort;
+import org.springframework.data.cassandra.core.mapping.MapId;
+import org.springframework.data.domain.Limit;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
+import java.time.Clock;
 import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -30,6 +42,31 @@ class MessageServiceImplTest {
     @Mock
     MessageRepository repository;
 
+    @Mock
+    ChatBucketRepository bucketIndex;
+
+    @Mock
+    MessageWriteBehind writeBehind;
+
+    @Mock
+    UnreadCounterService unreadCounters;
+
+    @Mock
+    RecentMessageBuffer recentMessages;
+
+    @Mock
+    Clock clock;
+
+    @Spy
+    ScyllaMetrics scyllaMetrics = new ScyllaMetrics(new SimpleMeterRegistry());
+
+    @Spy
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final Instant now = Instant.parse("2026-03-10T12:00:00Z");
+    private final int today = (int) LocalDate.ofInstant(now, ZoneOffset.UTC).toEpochDay();
+    private final TimeOrderedIdGenerator ids = new TimeOrderedIdGenerator(Clock.fixed(now, ZoneOffset.UTC));
+
     private UUID chatId;
     private UUID messageId1;
     private UUID messageId2;
@@ -39,8 +76,8 @@ class MessageServiceImplTest {
     @BeforeEach
     void setUp() {
         chatId = UUID.randomUUID();
-        messageId1 = UUID.randomUUID();
-        messageId2 = UUID.randomUUID();
+        messageId1 = ids.generateId();
+        messageId2 = ids.generateId();
 
         msg1 = Message.builder()
                 .messageID(messageId1)
@@ -64,7 +101,8 @@ class MessageServiceImplTest {
     @Test
     @DisplayName("Successfully send a message")
     void sendAMessage() {
-        when(repository.save(any(Message.class))).thenReturn(Mono.just(msg1));
+        when(writeBehind.submit(any(Message.class))).thenReturn(Mono.just(msg1));
+        when(unreadCounters.onMessage(msg1)).thenReturn(Mono.empty());
 
         StepVerifier.create(messageService.sendAMessage(msg1))
                 .assertNext(msg -> {
@@ -72,16 +110,39 @@ class MessageServiceImplTest {
                     assertThat(msg.getMessageID()).isEqualTo(messageId1);
                 })
                 .verifyComplete();
+        verify(recentMessages).append(msg1);
+    }
 
+    @Test
+    @DisplayName("The send is acknowledged without waiting for unread counters")
+    void sendAMessage_does_not_wait_for_unread_counters() {
+        when(writeBehind.submit(any(Message.class))).thenReturn(Mono.just(msg1));
+        when(unreadCounters.onMessage(msg1)).thenReturn(Mono.never());
+
+        StepVerifier.create(messageService.sendAMessage(msg1))
+                .expectNext(msg1)
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("A failed counter bump is counted, and the stored message is still acknowledged")
+    void sendAMessage_survives_unread_counter_failure() {
+        when(writeBehind.submit(any(Message.class))).thenReturn(Mono.just(msg1));
+        when(unreadCounters.onMessage(msg1)).thenReturn(Mono.error(new IllegalStateException("redis down")));
+
+        StepVerifier.create(messageService.sendAMessage(msg1))
+                .expectNext(msg1)
+                .verifyComplete();
+        assertThat(meterRegistry.counter("chat.unread.bump.failures").count()).isEqualTo(1);
     }
 
     @Test
     @DisplayName("Successfully get message by ID")
     void getMessageByID() {
 
-        when(repository.findById(messageId1)).thenReturn(Mono.just(msg1));
+        when(repository.findById(any(MapId.class))).thenReturn(Mono.just(msg1));
 
-        StepVerifier.create(messageService.getMessageByID(messageId1))
+        StepVerifier.create(messageService.getMessageByID(chatId, messageId1))
                 .assertNext(msg -> {
                     assertThat(msg).isSameAs(msg1);
                     assertThat(msg.getMessageID()).isEqualTo(messageId1);
@@ -91,22 +152,88 @@ class MessageServiceImplTest {
 
     @Test
     void getMessageByChatID() {
-        when(repository.findByChatId(chatId)).thenReturn(Flux.just(msg1, msg2));
+        when(bucketIndex.findByChatId(chatId))
+                .thenReturn(Flux.just(new ChatBucket(chatId, today), new ChatBucket(chatId, today - 400)));
+        when(repository.findByChatIdAndBucket(chatId, today)).thenReturn(Flux.just(msg2));
+        when(repository.findByChatIdAndBucket(chatId, today - 400)).thenReturn(Flux.just(msg1));
 
+        // buckets far in the past are reached through the index, not a day-by-day walk
         StepVerifier.create(messageService.getMessageByChatID(chatId))
-                .assertNext(msg -> assertThat(msg.getChatId()).isEqualTo(chatId))
-                .assertNext(msg -> assertThat(msg.getChatId()).isEqualTo(chatId))
+                .expectNext(msg2, msg1)
                 .verifyComplete();
+        verify(repository, never()).findByChatIdAndBucket(chatId, today - 1);
 
     }
 
     @Test
+    @DisplayName("Recent messages walk back through the non-empty buckets until the limit is reached")
     void getRecentMessages() {
-        when(repository.findByChatId(chatId, PageRequest.of(0, 10, Sort.by("messageId").descending())))
-                .thenReturn(Flux.just(msg1, msg2));
+        when(clock.millis()).thenReturn(now.toEpochMilli());
+        when(bucketIndex.findByChatIdAndBucketLessThanEqual(chatId, today)).thenReturn(Flux.just(
+                new ChatBucket(chatId, today), new ChatBucket(chatId, today - 5), new ChatBucket(chatId, today - 9)));
+        when(repository.findByChatIdAndBucket(chatId, today, Limit.of(3)))
+                .thenReturn(Flux.just(msg2, msg1));
+        // only the row still missing is asked for
+        when(repository.findByChatIdAndBucket(chatId, today - 5, Limit.of(1)))
+                .thenReturn(Flux.just(msg1));
+
+        StepVerifier.create(messageService.getRecentMessages(chatId, 3))
+                .expectNextCount(3)
+                .verifyComplete();
 
-        StepVerifier.create(messageService.getRecentMessages(chatId, 10))
-                .expectNextCount(2)
+        // the walk stops once the limit is satisfied
+        verify(repository, never()).findByChatIdAndBucket(eq(chatId), eq(today - 9), any(Limit.class));
+    }
+
+    @Test
+    @DisplayName("Recent messages come from the ring when it covers the window")
+    void getRecentMessages_from_ring() {
+        when(recentMessages.recent(chatId, 2)).thenReturn(Optional.of(List.of(msg2, msg1)));
+
+        StepVerifier.create(messageService.getRecentMessages(chatId, 2))
+                .expectNext(msg2, msg1)
+                .verifyComplete();
+        verifyNoInteractions(repository);
+    }
+
+    @Test
+    void getMessagesBefore_cursor() {
+        when(bucketIndex.findByChatIdAndBucketLessThanEqual(chatId, today))
+                .thenReturn(Flux.just(new ChatBucket(chatId, today), new ChatBucket(chatId, today - 2)));
+        when(repository.findByChatIdAndBucketAndMessageIDLessThan(chatId, today, messageId2, Limit.of(10)))
+                .thenReturn(Flux.just(msg1));
+        when(repository.findByChatIdAndBucket(chatId, today - 2, Limit.of(9)))
+                .thenReturn(Flux.empty());
+
+        StepVerifier.create(messageService.getMessagesBefore(chatId, messageId2, 10))
+                .expectNext(msg1)
                 .verifyComplete();
+        verify(repository, never()).findByChatIdAndBucket(chatId, today, Limit.of(10));
+    }
+
+    @Test
+    void getMessagesAfter_cursor() {
+        when(bucketIndex.findByChatIdAndBucketGreaterThanEqualOrderByBucketAsc(chatId, today))
+                .thenReturn(Flux.just(new ChatBucket(chatId, today)));
+        when(repository.findByChatIdAndBucketAndMessageIDGreaterThanOrderByMessageIDAsc(chatId, today, messageId1, Limit.of(5)))
+                .thenReturn(Flux.just(msg2));
+
+        StepVerifier.create(messageService.getMessagesAfter(chatId, messageId1, 5))
+                .expectNext(msg2)
+                .verifyComplete();
+    }
+
+    @Test
+    void getMessagesBefore_invalid_limit() {
+        StepVerifier.create(messageService.getMessagesBefore(chatId, null, 0))
+                .expectError(IllegalArgumentException.class)
+                .verify();
+    }
+
+    @Test
+    void getMessagesBefore_non_time_ordered_cursor() {
+        StepVerifier.create(messageService.getMessagesBefore(chatId, UUID.randomUUID(), 10))
+                .expectError(IllegalArgumentException.class)
+                .verify();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,191 @@
+package com.chatapp.chat_service.domain.service;
+
+import com.chatapp.chat_service.domain.exception.ServiceExceptions;
+import com.chatapp.chat_service.domain.model.ChatBucket;
+import com.chatapp.chat_service.domain.model.Message;
+import com.chatapp.chat_service.domain.model.MessageBucket;
+import com.chatapp.chat_service.domain.repository.ChatBucketRepository;
+import com.chatapp.chat_service.domain.repository.MessageRepository;
+import com.chatapp.chat_service.infrastructure.config.TimeOrderedIdGenerator;
+import com.chatapp.chat_service.infrastructure.persistence.db.ScyllaMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.cassandra.core.ReactiveCassandraBatchOperations;
+import org.springframework.data.cassandra.core.ReactiveCassandraOperations;
+import org.springframework.data.cassandra.core.WriteResult;
+import org.springframework.data.cassandra.core.cql.BatchType;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyIterable;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class MessageWriteBehindTest {
+
+    @Mock
+    MessageRepository repository;
+
+    @Mock
+    ChatBucketRepository bucketIndex;
+
+    @Mock
+    ReactiveCassandraOperations operations;
+
+    @Mock
+    ReactiveCassandraBatchOperations batchOps;
+
+    private SimpleMeterRegistry meterRegistry;
+    private MessageWriteBehind writeBehind;
+    private final UUID chatId = UUID.randomUUID();
+    private final TimeOrderedIdGenerator ids = new TimeOrderedIdGenerator(Clock.systemUTC());
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        writeBehind = new MessageWriteBehind(repository, bucketIndex, operations, new ScyllaMetrics(meterRegistry), meterRegistry,
+                3, Duration.ofMillis(50), 4, 10);
+        lenient().when(bucketIndex.save(any(ChatBucket.class)))
+                .thenAnswer(call -> Mono.just(call.getArgument(0)));
+    }
+
+    @AfterEach
+    void tearDown() {
+        writeBehind.shutdown();
+    }
+
+    @Test
+    void messages_of_one_chat_are_flushed_as_one_batch() {
+        when(operations.batchOps(BatchType.UNLOGGED)).thenReturn(batchOps);
+        when(batchOps.insert(anyIterable())).thenReturn(batchOps);
+        when(batchOps.execute()).thenReturn(Mono.just(mock(WriteResult.class)));
+
+        Flux<Message> acks = Flux.merge(
+                writeBehind.submit(message(chatId)),
+                writeBehind.submit(message(chatId)),
+                writeBehind.submit(message(chatId)));
+
+        StepVerifier.create(acks)
+                .expectNextCount(3)
+                .verifyComplete();
+
+        verify(batchOps).execute();
+        verify(repository, never()).save(any(Message.class));
+        assertThat(writeBehind.pending()).isZero();
+        assertThat(meterRegistry.summary("chat.messages.write.batch.size").max()).isEqualTo(3);
+        // one timed ScyllaDB write for the batch, not one per submit
+        await().untilAsserted(() -> assertThat(meterRegistry.find("chat.scylla.requests")
+                .tags("operation", "message.write", "outcome", "success").timer().count()).isEqualTo(1));
+    }
+
+    @Test
+    void single_message_is_written_without_batch() {
+        Message message = message(chatId);
+        when(repository.save(message)).thenReturn(Mono.just(message));
+
+        StepVerifier.create(writeBehind.submit(message))
+                .expectNext(message)
+                .verifyComplete();
+
+        verify(operations, never()).batchOps(any(BatchType.class));
+    }
+
+    @Test
+    void partition_is_indexed_once() {
+        Message first = message(chatId);
+        Message second = message(chatId);
+        when(repository.save(any(Message.class))).thenAnswer(call -> Mono.just(call.getArgument(0)));
+
+        StepVerifier.create(writeBehind.submit(first)).expectNext(first).verifyComplete();
+        StepVerifier.create(writeBehind.submit(second)).expectNext(second).verifyComplete();
+
+        verify(bucketIndex, times(1)).save(argThat(b ->
+                b.getChatId().equals(chatId) && b.getBucket() == MessageBucket.of(first)));
+    }
+
+    @Test
+    void failed_index_write_fails_the_messages() {
+        Message message = message(chatId);
+        when(bucketIndex.save(any(ChatBucket.class))).thenReturn(Mono.error(new RuntimeException("Db down")));
+        when(repository.save(message)).thenReturn(Mono.just(message));
+
+        StepVerifier.create(writeBehind.submit(message))
+                .expectError(RuntimeException.class)
+                .verify();
+    }
+
+    @Test
+    void partition_writes_of_all_batches_share_one_concurrency_limit() {
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxSeen = new AtomicInteger();
+        when(repository.save(any(Message.class))).thenAnswer(call -> Mono.delay(Duration.ofMillis(20))
+                .doOnSubscribe(s -> maxSeen.accumulateAndGet(inFlight.incrementAndGet(), Math::max))
+                .doFinally(signal -> inFlight.decrementAndGet())
+                .thenReturn(call.getArgument(0)));
+
+        // 10 chats, batches of 3: every message is its own partition
+        Flux<Message> acks = Flux.range(0, 10)
+                .flatMap(i -> writeBehind.submit(message(UUID.randomUUID())));
+
+        StepVerifier.create(acks)
+                .expectNextCount(10)
+                .verifyComplete();
+        assertThat(maxSeen.get()).isLessThanOrEqualTo(4);
+    }
+
+    @Test
+    void failed_write_is_reported_to_sender() {
+        Message message = message(chatId);
+        when(repository.save(message)).thenReturn(Mono.error(new RuntimeException("Db down")));
+
+        StepVerifier.create(writeBehind.submit(message))
+                .expectError(RuntimeException.class)
+                .verify();
+        assertThat(writeBehind.pending()).isZero();
+    }
+
+    @Test
+    void message_without_chat_is_rejected() {
+        StepVerifier.create(writeBehind.submit(message(null)))
+                .expectError(ServiceExceptions.class)
+                .verify();
+    }
+
+    @Test
+    void message_with_client_made_id_is_rejected() {
+        Message message = message(chatId);
+        message.setMessageID(UUID.randomUUID());
+
+        StepVerifier.create(writeBehind.submit(message))
+                .expectError(ServiceExceptions.class)
+                .verify();
+        verifyNoInteractions(repository);
+    }
+
+    private Message message(UUID chat) {
+        return Message.builder()
+                .chatId(chat)
+                .messageID(ids.generateId())
+                .senderID(UUID.randomUUID())
+                .content("Hello")
+                .createdAt(Instant.now())
+                .updatedAt(Instant.now())
+                .build();
+    }
+}
@@ -0,0 +1,136 @@
+package com.chatapp.chat_service.domain.service;
+
+import com.chatapp.chat_service.domain.model.ReadState;
+import com.chatapp.chat_service.domain.model.ReceiptType;
+import com.chatapp.chat_service.infrastructure.config.TimeOrderedIdGenerator;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.cassandra.core.ReactiveCassandraOperations;
+import org.springframework.data.cassandra.core.cql.ReactiveCqlOperations;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class ReadReceiptCoalescerTest {
+
+    private final ReactiveCassandraOperations operations = mock();
+    private final ReactiveCqlOperations cql = mock();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final TimeOrderedIdGenerator ids = new TimeOrderedIdGenerator(Clock.systemUTC());
+    private final UUID chatId = UUID.randomUUID();
+    private final UUID userId = UUID.randomUUID();
+
+    private ReadReceiptCoalescer coalescer;
+
+    @BeforeEach
+    void setUp() {
+        when(operations.getReactiveCqlOperations()).thenReturn(cql);
+        // the ticker never fires during a test, flushes are triggered by hand
+        coalescer = new ReadReceiptCoalescer(operations, Clock.systemUTC(), meterRegistry, Duration.ofHours(1), 4);
+    }
+
+    @AfterEach
+    void tearDown() {
+        coalescer.shutdown();
+    }
+
+    @Test
+    @DisplayName("Many acks of one user in one chat become a single write")
+    void coalesces_acks_into_one_write() {
+        when(cql.execute(anyString(), any(), any(), any(), any(), any())).thenReturn(Mono.just(true));
+        UUID first = ids.generateId();
+        UUID second = ids.generateId();
+        UUID third = ids.generateId();
+
+        coalescer.ack(chatId, userId, ReceiptType.READ, second);
+        coalescer.ack(chatId, userId, ReceiptType.READ, third);
+        coalescer.ack(chatId, userId, ReceiptType.READ, first); // late, out of order
+
+        StepVerifier.create(coalescer.flush()).verifyComplete();
+
+        verify(cql, times(1)).execute(contains("readUpTo"), eq(micros(third)), eq(third), any(), eq(chatId), eq(userId));
+        verify(cql, times(1)).execute(contains("deliveredUpTo"), eq(micros(third)), eq(third), any(), eq(chatId), eq(userId));
+        assertThat(meterRegistry.counter("chat.receipts.acks").count()).isEqualTo(3);
+        assertThat(meterRegistry.counter("chat.receipts.writes").count()).isEqualTo(1);
+        assertThat(coalescer.pending()).isZero();
+    }
+
+    @Test
+    @DisplayName("Flushed watermarks are published for fan-out")
+    void publishes_flushed_state() {
+        when(cql.execute(anyString(), any(), any(), any(), any(), any())).thenReturn(Mono.just(true));
+        UUID delivered = ids.generateId();
+        coalescer.ack(chatId, userId, ReceiptType.DELIVERED, delivered);
+
+        StepVerifier.create(coalescer.flushed().next())
+                .then(() -> coalescer.flush().subscribe())
+                .assertNext((ReadState state) -> {
+                    assertThat(state.getDeliveredUpTo()).isEqualTo(delivered);
+                    assertThat(state.getReadUpTo()).isNull();
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("A failed write is retried on the next flush")
+    void failed_write_is_requeued() {
+        when(cql.execute(anyString(), any(), any(), any(), any(), any()))
+                .thenReturn(Mono.error(new RuntimeException("Db down")));
+        coalescer.ack(chatId, userId, ReceiptType.DELIVERED, ids.generateId());
+
+        StepVerifier.create(coalescer.flush()).verifyComplete();
+
+        assertThat(coalescer.pending()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("An ack older than the flushed watermark is dropped")
+    void stale_ack_does_not_regress() {
+        when(cql.execute(anyString(), any(), any(), any(), any(), any())).thenReturn(Mono.just(true));
+        UUID older = ids.generateId();
+        UUID newer = ids.generateId();
+
+        coalescer.ack(chatId, userId, ReceiptType.READ, newer);
+        StepVerifier.create(coalescer.flush()).verifyComplete();
+        coalescer.ack(chatId, userId, ReceiptType.READ, older); // retransmitted from another device
+        StepVerifier.create(coalescer.flush()).verifyComplete();
+
+        verify(cql, never()).execute(anyString(), any(), eq(older), any(), any(), any());
+        assertThat(meterRegistry.counter("chat.receipts.writes").count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Acks that are not message ids are ignored")
+    void foreign_ids_are_ignored() {
+        coalescer.ack(chatId, userId, ReceiptType.READ, UUID.randomUUID());
+
+        assertThat(coalescer.pending()).isZero();
+    }
+
+    @Test
+    void newest_orders_v7_ids_by_time() {
+        UUID older = ids.generateId();
+        UUID newer = ids.generateId();
+
+        assertThat(ReadReceiptCoalescer.newest(older, newer)).isEqualTo(newer);
+        assertThat(ReadReceiptCoalescer.newest(newer, older)).isEqualTo(newer);
+        assertThat(ReadReceiptCoalescer.newest(null, older)).isEqualTo(older);
+    }
+
+    private static long micros(UUID messageId) {
+        return TimeOrderedIdGenerator.timestampOf(messageId) * 1_000;
+    }
+}
@@ -0,0 +1,101 @@
+package com.chatapp.chat_service.domain.service;
+
+import com.chatapp.chat_service.domain.model.Message;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RecentMessageBufferTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final UUID chatId = UUID.randomUUID();
+
+    @Test
+    @DisplayName("Gap after a message still in the ring is served in arrival order")
+    void after_returns_gap() {
+        RecentMessageBuffer buffer = newBuffer(8);
+        buffer.track(chatId);
+        Message m1 = message();
+        Message m2 = message();
+        Message m3 = message();
+        buffer.append(m1);
+        buffer.append(m2);
+        buffer.append(m3);
+
+        assertThat(buffer.after(chatId, m1.getMessageID())).hasValueSatisfying(gap ->
+                assertThat(gap).containsExactly(m2, m3));
+        assertThat(buffer.after(chatId, m3.getMessageID())).hasValueSatisfying(gap ->
+                assertThat(gap).isEmpty());
+        assertThat(meterRegistry.counter("chat.messages.recent.reads", "read", "after", "result", "hit").count()).isEqualTo(2);
+        assertThat(meterRegistry.counter("chat.messages.recent.reads", "read", "recent", "result", "hit").count()).isZero();
+    }
+
+    @Test
+    @DisplayName("Evicted or untracked history falls back to the database")
+    void after_is_empty_when_gap_not_covered() {
+        RecentMessageBuffer buffer = newBuffer(2);
+        buffer.track(chatId);
+        Message m1 = message();
+        buffer.append(m1);
+        buffer.append(message());
+        buffer.append(message());
+
+        assertThat(buffer.after(chatId, m1.getMessageID())).isEmpty();
+
+        buffer.untrack(chatId);
+        buffer.append(message());
+        assertThat(buffer.after(chatId, UUID.randomUUID())).isEmpty();
+        assertThat(buffer.isTracked(chatId)).isFalse();
+    }
+
+    @Test
+    @DisplayName("Recent window is served only when fully covered, newest first")
+    void recent_requires_full_window() {
+        RecentMessageBuffer buffer = newBuffer(8);
+        buffer.track(chatId);
+        Message m1 = message();
+        Message m2 = message();
+        buffer.append(m1);
+        buffer.append(m2);
+
+        assertThat(buffer.recent(chatId, 3)).isEmpty();
+        assertThat(buffer.recent(chatId, 2)).hasValueSatisfying(window ->
+                assertThat(window).containsExactlyInAnyOrder(m1, m2));
+        assertThat(meterRegistry.counter("chat.messages.recent.reads", "read", "recent", "result", "hit").count()).isEqualTo(1);
+        assertThat(meterRegistry.counter("chat.messages.recent.reads", "read", "recent", "result", "miss").count()).isEqualTo(1);
+        assertThat(meterRegistry.counter("chat.messages.recent.reads", "read", "after", "result", "hit").count()).isZero();
+    }
+
+    @Test
+    @DisplayName("Rings stay under the global memory cap")
+    void memory_cap_evicts_rings() {
+        RecentMessageBuffer buffer = new RecentMessageBuffer(meterRegistry, 64, DataSize.ofKilobytes(8), Duration.ofMinutes(10));
+        List<UUID> chats = IntStream.range(0, 100).mapToObj(i -> UUID.randomUUID()).toList();
+        for (UUID chat : chats) {
+            buffer.track(chat);
+            for (int i = 0; i < 10; i++) {
+                buffer.append(Message.builder().chatId(chat).messageID(UUID.randomUUID()).content("x".repeat(100)).build());
+            }
+        }
+
+        assertThat(meterRegistry.get("chat.messages.recent.memory").gauge().value())
+                .isLessThanOrEqualTo(DataSize.ofKilobytes(8).toBytes());
+    }
+
+    private RecentMessageBuffer newBuffer(int capacity) {
+        return new RecentMessageBuffer(meterRegistry, capacity, DataSize.ofMegabytes(1), Duration.ofMinutes(10));
+    }
+
+    private Message message() {
+        return Message.builder().chatId(chatId).messageID(UUID.randomUUID()).content("x").build();
+    }
+}
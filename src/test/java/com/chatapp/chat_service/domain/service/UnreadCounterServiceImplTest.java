@@ -0,0 +1,179 @@
+package com.chatapp.chat_service.domain.service;
+
+import com.chatapp.chat_service.api.dto.GroupDto;
+import com.chatapp.chat_service.domain.model.Message;
+import com.chatapp.chat_service.domain.model.UnreadCount;
+import com.chatapp.chat_service.domain.repository.UnreadCountRepository;
+import com.chatapp.chat_service.infrastructure.config.TimeOrderedIdGenerator;
+import com.chatapp.chat_service.infrastructure.persistence.jpa.DirectService;
+import com.chatapp.chat_service.infrastructure.persistence.jpa.GroupService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.cassandra.core.ReactiveCassandraBatchOperations;
+import org.springframework.data.cassandra.core.ReactiveCassandraOperations;
+import org.springframework.data.cassandra.core.WriteResult;
+import org.springframework.data.cassandra.core.cql.BatchType;
+import org.springframework.data.redis.core.ReactiveHashOperations;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyIterable;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class UnreadCounterServiceImplTest {
+
+    @InjectMocks
+    UnreadCounterServiceImpl service;
+
+    @Mock
+    ReactiveStringRedisTemplate redisTemplate;
+
+    @Mock
+    ReactiveHashOperations<String, String, String> hashOperations;
+
+    @Mock
+    UnreadCountRepository repository;
+
+    @Mock
+    ReactiveCassandraOperations operations;
+
+    @Mock
+    ReactiveCassandraBatchOperations batchOps;
+
+    @Mock
+    GroupService groupService;
+
+    @Mock
+    DirectService directService;
+
+    @Mock
+    ReadReceiptCoalescer receipts;
+
+    private final UUID chatId = UUID.randomUUID();
+    private final UUID sender = UUID.randomUUID();
+    private final UUID member = UUID.randomUUID();
+    private final UUID admin = UUID.randomUUID();
+    private final TimeOrderedIdGenerator ids = new TimeOrderedIdGenerator(Clock.systemUTC());
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(redisTemplate.<String, String>opsForHash()).thenReturn(hashOperations);
+    }
+
+    @Test
+    @DisplayName("A message bumps every recipient except the sender")
+    void onMessage_increments_recipients() {
+        Instant now = Instant.now();
+        when(groupService.getGroupById(chatId)).thenReturn(Mono.just(
+                new GroupDto(chatId, "t", "d", admin, List.of(sender, member), now, now)));
+        when(redisTemplate.execute(any(RedisScript.class), anyList(), anyList())).thenReturn(Flux.just(1L));
+
+        UUID messageId = ids.generateId();
+        Message message = Message.builder().chatId(chatId).messageID(messageId).senderID(sender).build();
+
+        StepVerifier.create(service.onMessage(message)).verifyComplete();
+
+        List<String> args = List.of(chatId.toString(), messageId.toString());
+        verify(redisTemplate).execute(any(RedisScript.class), eq(List.of("unread:" + member)), eq(args));
+        verify(redisTemplate).execute(any(RedisScript.class), eq(List.of("unread:" + admin)), eq(args));
+        verify(redisTemplate, never()).execute(any(RedisScript.class), eq(List.of("unread:" + sender)), anyList());
+    }
+
+    @Test
+    @DisplayName("A read watermark is checked against the chat's newest message before resetting")
+    void markRead_passes_watermark() {
+        UUID readUpTo = ids.generateId();
+        when(redisTemplate.execute(any(RedisScript.class), anyList(), anyList())).thenReturn(Flux.just(0L));
+
+        StepVerifier.create(service.markRead(member, chatId, readUpTo)).verifyComplete();
+
+        verify(redisTemplate).execute(any(RedisScript.class), eq(List.of("unread:" + member)),
+                eq(List.of(chatId.toString(), readUpTo.toString())));
+    }
+
+    @Test
+    @DisplayName("A watermark that is not a message id never resets the counter")
+    void markRead_ignores_foreign_ids() {
+        StepVerifier.create(service.markRead(member, chatId, UUID.randomUUID())).verifyComplete();
+
+        verifyNoInteractions(redisTemplate);
+    }
+
+    @Test
+    @DisplayName("All counts of a user come from one HGETALL")
+    void getUnreadCounts_from_redis() {
+        when(hashOperations.entries("unread:" + member))
+                .thenReturn(Flux.just(Map.entry(chatId.toString(), "3"), Map.entry("_", "1")));
+
+        StepVerifier.create(service.getUnreadCounts(member))
+                .expectNext(Map.of(chatId, 3L))
+                .verifyComplete();
+        verifyNoInteractions(repository);
+    }
+
+    @Test
+    @DisplayName("Lost hash is merged with the checkpoint, keeping counts bumped since the loss")
+    void getUnreadCounts_restores_checkpoint() {
+        // a message arrived after Redis lost the hash, before anyone read it
+        when(hashOperations.entries("unread:" + member)).thenReturn(
+                Flux.just(Map.entry(chatId.toString(), "2")),
+                Flux.just(Map.entry(chatId.toString(), "7"), Map.entry("_", "1")));
+        when(repository.findByUserId(member)).thenReturn(Flux.just(new UnreadCount(member, chatId, 5)));
+        when(redisTemplate.execute(any(RedisScript.class), eq(List.of("unread:" + member)),
+                eq(List.of(chatId.toString(), "5")))).thenReturn(Flux.just(1L));
+
+        StepVerifier.create(service.getUnreadCounts(member))
+                .expectNext(Map.of(chatId, 7L))
+                .verifyComplete();
+        verify(hashOperations, never()).putAll(anyString(), anyMap());
+    }
+
+    @Test
+    @DisplayName("A hash that was never merged is merged before it is checkpointed")
+    void checkpoint_merges_unrestored_hash_first() {
+        UUID otherChat = UUID.randomUUID();
+        when(groupService.getGroupById(chatId)).thenReturn(Mono.just(
+                new GroupDto(chatId, "t", "d", member, List.of(), Instant.now(), Instant.now())));
+        when(hashOperations.entries("unread:" + member)).thenReturn(
+                Flux.just(Map.entry(chatId.toString(), "1")),
+                Flux.just(Map.entry(chatId.toString(), "1"), Map.entry(otherChat.toString(), "4"), Map.entry("_", "1")));
+        when(repository.findByUserId(member)).thenReturn(Flux.just(new UnreadCount(member, otherChat, 4)));
+        when(redisTemplate.execute(any(RedisScript.class), anyList(), anyList())).thenReturn(Flux.just(1L));
+        when(operations.batchOps(BatchType.UNLOGGED)).thenReturn(batchOps);
+        when(batchOps.insert(anyIterable())).thenReturn(batchOps);
+        when(batchOps.execute()).thenReturn(Mono.just(mock(WriteResult.class)));
+
+        StepVerifier.create(service.onMessage(Message.builder().chatId(chatId).messageID(ids.generateId()).senderID(sender).build())
+                        .then(service.checkpoint()))
+                .verifyComplete();
+
+        // otherChat keeps its checkpointed count instead of being zeroed
+        verify(batchOps).insert(argThat((Iterable<UnreadCount> rows) -> {
+            Map<UUID, Long> written = new HashMap<>();
+            rows.forEach(row -> written.put(row.getChatId(), row.getCount()));
+            return written.equals(Map.of(chatId, 1L, otherChat, 4L));
+        }));
+    }
+}
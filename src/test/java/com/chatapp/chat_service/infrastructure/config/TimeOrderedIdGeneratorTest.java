@@ -0,0 +1,95 @@
+package com.chatapp.chat_service.infrastructure.config;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TimeOrderedIdGeneratorTest {
+
+    @Test
+    @DisplayName("Ids are version 7 and carry the clock millis")
+    void version_and_timestamp() {
+        Instant now = Instant.parse("2026-01-01T10:00:00Z");
+        var generator = new TimeOrderedIdGenerator(Clock.fixed(now, ZoneOffset.UTC));
+
+        UUID id = generator.generateId();
+
+        assertThat(id.version()).isEqualTo(7);
+        assertThat(id.variant()).isEqualTo(2);
+        assertThat(TimeOrderedIdGenerator.timestampOf(id)).isEqualTo(now.toEpochMilli());
+        assertThat(TimeOrderedIdGenerator.timestampOf(UUID.randomUUID())).isEqualTo(-1);
+    }
+
+    @Test
+    @DisplayName("Ids stay strictly increasing within one frozen millisecond")
+    void monotonic_on_frozen_clock() {
+        var generator = new TimeOrderedIdGenerator(Clock.fixed(Instant.now(), ZoneOffset.UTC));
+
+        UUID previous = generator.generateId();
+        for (int i = 0; i < 10_000; i++) {
+            UUID next = generator.generateId();
+            assertThat(next).isGreaterThan(previous);
+            previous = next;
+        }
+    }
+
+    @Test
+    @DisplayName("Concurrent callers never get the same id")
+    void unique_across_threads() throws Exception {
+        var generator = new TimeOrderedIdGenerator(Clock.systemUTC());
+        int threads = 8;
+        int perThread = 20_000;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+
+        List<Future<List<UUID>>> results = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            Callable<List<UUID>> task = () -> {
+                List<UUID> ids = new ArrayList<>(perThread);
+                for (int i = 0; i < perThread; i++) {
+                    ids.add(generator.generateId());
+                }
+                return ids;
+            };
+            results.add(pool.submit(task));
+        }
+
+        Set<UUID> all = new HashSet<>();
+        for (Future<List<UUID>> result : results) {
+            List<UUID> ids = result.get();
+            for (int i = 1; i < ids.size(); i++) {
+                assertThat(ids.get(i)).isGreaterThan(ids.get(i - 1));
+            }
+            all.addAll(ids);
+        }
+        pool.shutdown();
+        assertThat(all).hasSize(threads * perThread);
+    }
+
+    @Test
+    @DisplayName("Derived ids carry the given time and are stable per seed")
+    void derive_is_deterministic() {
+        UUID legacy = UUID.randomUUID();
+        long millis = Instant.parse("2024-05-01T10:00:00Z").toEpochMilli();
+
+        UUID derived = TimeOrderedIdGenerator.derive(millis, legacy);
+
+        assertThat(derived.version()).isEqualTo(7);
+        assertThat(derived.variant()).isEqualTo(2);
+        assertThat(TimeOrderedIdGenerator.timestampOf(derived)).isEqualTo(millis);
+        assertThat(TimeOrderedIdGenerator.derive(millis, legacy)).isEqualTo(derived);
+    }
+}
@@ -0,0 +1,81 @@
+package com.chatapp.chat_service.infrastructure.config;
+
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.server.reactive.observation.ServerRequestObservationContext;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.http.server.reactive.MockServerHttpResponse;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TraceSamplerTest {
+
+    @Test
+    @DisplayName("Longest matching path rule decides, the default covers the rest")
+    void path_rules() {
+        TraceSampler sampler = new TraceSampler(0.0, 0, Map.of(
+                "/api/v1", 1.0,
+                "/api/v1/group/export", 0.0));
+
+        assertThat(sampler.isSampled(request(MockServerHttpRequest.get("/api/v1/message/1")))).isTrue();
+        assertThat(sampler.isSampled(request(MockServerHttpRequest.get("/api/v1/group/export")))).isFalse();
+        assertThat(sampler.isSampled(request(MockServerHttpRequest.get("/actuator/health")))).isFalse();
+        // claimed by the sampler means silenced
+        assertThat(sampler.supportsContext(request(MockServerHttpRequest.get("/actuator/health")))).isTrue();
+    }
+
+    @Test
+    @DisplayName("A sampled caller keeps its trace whatever the rules say")
+    void upstream_decision_wins() {
+        TraceSampler sampler = new TraceSampler(0.0, 0, Map.of());
+
+        assertThat(sampler.isSampled(request(MockServerHttpRequest.get("/api/v1/group")
+                .header("traceparent", "00-4bf92f3577b34da6a3ce929d0e0e4736-00f067aa0ba902b7-01")))).isTrue();
+        assertThat(sampler.isSampled(request(MockServerHttpRequest.get("/api/v1/group")
+                .header("b3", "80f198ee56343ba864fe8b2a57d3eff7-e457b5a2e4d86bd1-1")))).isTrue();
+        assertThat(sampler.isSampled(request(MockServerHttpRequest.get("/api/v1/group")
+                .header("traceparent", "00-4bf92f3577b34da6a3ce929d0e0e4736-00f067aa0ba902b7-00")))).isFalse();
+    }
+
+    @Test
+    @DisplayName("Children inherit the decision of their trace")
+    void children_inherit() {
+        TraceSampler sampler = new TraceSampler(0.0, 0, Map.of("spring.data", 1.0));
+        ObservationRegistry registry = ObservationRegistry.create();
+        registry.observationConfig().observationHandler(sampler);
+
+        Observation parent = Observation.start("chat.message.send", registry);
+        Observation child = Observation.createNotStarted("spring.data.redis", registry).parentObservation(parent);
+
+        assertThat(sampler.isSampled(parent.getContext())).isFalse();
+        assertThat(sampler.isSampled(child.getContext())).isFalse();
+        parent.stop();
+    }
+
+    @Test
+    @DisplayName("New traces are capped per second")
+    void rate_limited() {
+        TraceSampler sampler = new TraceSampler(1.0, 2, Map.of());
+
+        long sampled = 0;
+        for (int i = 0; i < 10; i++) {
+            Observation.Context context = new Observation.Context();
+            context.setName("chat.job");
+            if (sampler.isSampled(context)) {
+                sampled++;
+            }
+        }
+        // a second boundary in the middle of the loop opens one more window
+        assertThat(sampled).isBetween(2L, 4L);
+    }
+
+    private static ServerRequestObservationContext request(MockServerHttpRequest.BaseBuilder<?> request) {
+        Map<String, Object> attributes = new HashMap<>();
+        return new ServerRequestObservationContext(request.build(), new MockServerHttpResponse(), attributes);
+    }
+}
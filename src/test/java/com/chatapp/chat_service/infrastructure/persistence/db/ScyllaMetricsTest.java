@@ -0,0 +1,65 @@
+package com.chatapp.chat_service.infrastructure.persistence.db;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.concurrent.TimeoutException;
+
+import static com.chatapp.chat_service.infrastructure.persistence.db.ScyllaMetrics.Operation.*;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ScyllaMetricsTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ScyllaMetrics metrics = new ScyllaMetrics(meterRegistry);
+
+    @Test
+    @DisplayName("Every operation and outcome is registered before the first call")
+    void timers_are_pre_registered() {
+        assertThat(meterRegistry.find("chat.scylla.requests").timers())
+                .hasSize(ScyllaMetrics.Operation.values().length * 3);
+        assertThat(meterRegistry.find("chat.scylla.requests")
+                .tags("operation", "message.history", "outcome", "error").timer()).isNotNull();
+    }
+
+    @Test
+    @DisplayName("Errors and successes land on separate timers, per subscription")
+    void records_outcome() {
+        Mono<String> ok = metrics.time(MESSAGE_GET, Mono.just("row"));
+        StepVerifier.create(ok).expectNext("row").verifyComplete();
+        StepVerifier.create(ok).expectNext("row").verifyComplete();
+        StepVerifier.create(metrics.time(MESSAGE_GET, Mono.error(new IllegalStateException("down"))))
+                .verifyError(IllegalStateException.class);
+
+        assertThat(metrics.timer(MESSAGE_GET, false).count()).isEqualTo(2);
+        assertThat(metrics.timer(MESSAGE_GET, true).count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("A read cut short by take() is neither a success nor an error")
+    void cancelled_read_has_own_outcome() {
+        StepVerifier.create(metrics.time(MESSAGE_HISTORY, Flux.range(0, 100)).take(3))
+                .expectNextCount(3)
+                .verifyComplete();
+
+        assertThat(metrics.cancelled(MESSAGE_HISTORY).count()).isEqualTo(1);
+        assertThat(metrics.timer(MESSAGE_HISTORY, false).count()).isZero();
+        assertThat(metrics.timer(MESSAGE_HISTORY, true).count()).isZero();
+    }
+
+    @Test
+    @DisplayName("A call abandoned by the caller's timeout lands on the cancel outcome")
+    void timed_out_call_is_cancelled() {
+        StepVerifier.withVirtualTime(() -> metrics.time(MESSAGE_GET, Mono.never()).timeout(Duration.ofSeconds(3)))
+                .thenAwait(Duration.ofSeconds(3))
+                .verifyError(TimeoutException.class);
+
+        assertThat(metrics.cancelled(MESSAGE_GET).count()).isEqualTo(1);
+        assertThat(metrics.timer(MESSAGE_GET, false).count()).isZero();
+    }
+}
@@ -0,0 +1,104 @@
+package com.chatapp.chat_service.infrastructure.persistence.redis;
+
+import com.chatapp.chat_service.domain.model.Group;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.serializer.JacksonJsonRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CompactGroupRedisSerializerTest {
+
+    private final RedisSerializer<Group> json =
+            new JacksonJsonRedisSerializer<>(JsonMapper.builder().findAndAddModules().build(), Group.class);
+    private final CompactGroupRedisSerializer serializer = new CompactGroupRedisSerializer(1024, json);
+
+    @Test
+    @DisplayName("Small group round-trips uncompressed")
+    void round_trip_small() {
+        Group group = group(3);
+
+        byte[] bytes = serializer.serialize(group);
+
+        assertThat(bytes[1]).isZero();
+        assertThat(serializer.deserialize(bytes)).isEqualTo(group);
+    }
+
+    @Test
+    @DisplayName("Large group is LZ4 compressed and much smaller than JSON")
+    void round_trip_large() {
+        Group group = group(2_000);
+
+        byte[] compact = serializer.serialize(group);
+
+        assertThat(compact[1]).isEqualTo((byte) 1);
+        assertThat(serializer.deserialize(compact)).isEqualTo(group);
+        assertThat(compact.length).isLessThan(json.serialize(group).length / 2);
+    }
+
+    @Test
+    @DisplayName("Nulls survive the round trip")
+    void round_trip_nulls() {
+        Group group = new Group(UUID.randomUUID(), null, null, null, null, null, null);
+
+        assertThat(serializer.deserialize(serializer.serialize(group))).isEqualTo(group);
+    }
+
+    @Test
+    @DisplayName("Entries written as JSON are still readable")
+    void reads_json_entries() {
+        Group group = group(2);
+
+        assertThat(serializer.deserialize(json.serialize(group))).isEqualTo(group);
+    }
+
+    @Test
+    @DisplayName("A compressed value declaring a huge body is a miss, not an allocation")
+    void implausible_body_length_is_a_miss() {
+        byte[] bytes = serializer.serialize(group(2_000));
+        bytes[2] = 0x7F; // body length ~2 GB
+
+        assertThat(serializer.deserialize(bytes)).isNull();
+    }
+
+    @Test
+    @DisplayName("A member count larger than the remaining bytes is a miss")
+    void implausible_member_count_is_a_miss() {
+        Group group = new Group(UUID.randomUUID(), null, null, null, Set.of(UUID.randomUUID()), null, null);
+        byte[] bytes = serializer.serialize(group);
+        // version, flags, groupID (17), title (4), description (4), admin (1), then the count
+        int count = 2 + 17 + 4 + 4 + 1;
+        bytes[count] = 0x7F;
+
+        assertThat(serializer.deserialize(bytes)).isNull();
+    }
+
+    @Test
+    @DisplayName("Truncated, corrupted or foreign values read as misses")
+    void corrupt_values_are_misses() {
+        byte[] large = serializer.serialize(group(2_000));
+        byte[] small = serializer.serialize(group(3));
+
+        assertThat(serializer.deserialize(Arrays.copyOf(large, large.length / 2))).isNull();
+        assertThat(serializer.deserialize(Arrays.copyOf(small, small.length - 5))).isNull();
+        assertThat(serializer.deserialize(new byte[] {9, 0, 1, 2})).isNull();
+        assertThat(serializer.deserialize(new byte[] {1})).isNull();
+    }
+
+    private Group group(int members) {
+        Set<UUID> ids = LinkedHashSet.newLinkedHashSet(members);
+        for (int i = 0; i < members; i++) {
+            ids.add(UUID.randomUUID());
+        }
+        Instant now = Instant.parse("2026-01-01T10:00:00.123456789Z");
+        return new Group(UUID.randomUUID(), "title", "описание", UUID.randomUUID(), ids, now, now);
+    }
+}
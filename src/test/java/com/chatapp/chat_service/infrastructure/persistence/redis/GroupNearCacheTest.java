@@ -0,0 +1,70 @@
+package com.chatapp.chat_service.infrastructure.persistence.redis;
+
+import com.chatapp.chat_service.domain.model.Group;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.connection.ReactiveSubscription;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.ReactiveRedisMessageListenerContainer;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@DisplayName("Group near cache invalidation")
+class GroupNearCacheTest {
+
+    private final ReactiveRedisMessageListenerContainer container = mock(ReactiveRedisMessageListenerContainer.class);
+    private final Sinks.Many<ReactiveSubscription.Message<String, String>> invalidations =
+            Sinks.many().unicast().onBackpressureBuffer();
+    private GroupNearCache nearCache;
+
+    @AfterEach
+    void tearDown() {
+        nearCache.shutdown();
+    }
+
+    @Test
+    void invalidations_arrive_again_after_the_subscription_failed() {
+        when(container.receive(any(ChannelTopic.class)))
+                .thenReturn(Flux.error(new RedisConnectionFailureException("connection reset")), invalidations.asFlux());
+        nearCache = new GroupNearCache(mock(ReactiveStringRedisTemplate.class), container, new SimpleMeterRegistry(),
+                100, Duration.ofMinutes(1), Duration.ofMillis(1));
+        verify(container, timeout(1_000).times(2)).receive(any(ChannelTopic.class));
+
+        Group group = new Group(UUID.randomUUID(), "title", null, null, null, null, null);
+        nearCache.put(group);
+        assertThat(nearCache.get(group.getGroupID())).isSameAs(group);
+
+        invalidations.tryEmitNext(new ReactiveSubscription.ChannelMessage<>(
+                "group:invalidate", UUID.randomUUID() + ":" + group.getGroupID()));
+
+        await().atMost(Duration.ofSeconds(1)).until(() -> nearCache.get(group.getGroupID()) == null);
+    }
+
+    @Test
+    @DisplayName("Entries cached before the subscription dropped are cleared, since their invalidations were lost")
+    void failed_subscription_clears_the_cache() {
+        Sinks.Many<ReactiveSubscription.Message<String, String>> first = Sinks.many().unicast().onBackpressureBuffer();
+        when(container.receive(any(ChannelTopic.class))).thenReturn(first.asFlux(), invalidations.asFlux());
+        nearCache = new GroupNearCache(mock(ReactiveStringRedisTemplate.class), container, new SimpleMeterRegistry(),
+                100, Duration.ofMinutes(1), Duration.ofMillis(1));
+        Group group = new Group(UUID.randomUUID(), "title", null, null, null, null, null);
+        nearCache.put(group);
+
+        first.tryEmitError(new RedisConnectionFailureException("connection reset"));
+
+        verify(container, timeout(1_000).times(2)).receive(any(ChannelTopic.class));
+        assertThat(nearCache.get(group.getGroupID())).isNull();
+    }
+}